@@ -0,0 +1,56 @@
+package com.medsoft.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+final class DictationCorpus {
+
+	private DictationCorpus() {
+	}
+
+	static List<String> utterances() {
+		try (InputStream in = DictationCorpus.class.getResourceAsStream("/replay/dictation-corpus.txt")) {
+			if (in == null) {
+				throw new IllegalStateException("dictation-corpus.txt не найден");
+			}
+			List<String> lines = new ArrayList<>();
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (!line.isBlank()) {
+						lines.add(line.trim());
+					}
+				}
+			}
+			return lines;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static byte[] voskJson(String utterance) {
+		StringBuilder json = new StringBuilder("{\n  \"result\" : [");
+		double time = 0.3;
+		String[] words = utterance.split(" ");
+		for (int i = 0; i < words.length; i++) {
+			double end = time + 0.12 + words[i].length() * 0.045;
+			if (i > 0) {
+				json.append(", ");
+			}
+			json.append("{\n      \"conf\" : ").append(String.format(Locale.ROOT, "%.6f", 0.72 + (i % 5) * 0.06))
+					.append(",\n      \"end\" : ").append(String.format(Locale.ROOT, "%.6f", end))
+					.append(",\n      \"start\" : ").append(String.format(Locale.ROOT, "%.6f", time))
+					.append(",\n      \"word\" : \"").append(words[i]).append("\"\n    }");
+			time = end + 0.08;
+		}
+		json.append("],\n  \"text\" : \"").append(utterance).append("\"\n}");
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
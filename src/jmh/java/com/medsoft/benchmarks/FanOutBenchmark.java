@@ -0,0 +1,66 @@
+package com.medsoft.benchmarks;
+
+import com.medsoft.models.RecognitionResult;
+import com.medsoft.recognition.*;
+import com.medsoft.websocket.VoiceWebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость публикации результата для потока декодера при N подписчиках сессии.
+ * Доставка идёт асинхронно, поэтому измеряется именно то, что платит декодер:
+ * сериализация и постановка отправок в очередь.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+
+	private static final String SESSION_ID = "bench";
+
+	@Param({"1", "10", "100"})
+	private int subscribers;
+
+	private VoiceWebSocketHandler handler;
+	private RecognitionResult[] results;
+	private int next;
+
+	@Setup
+	public void setUp() throws Exception {
+		handler = new VoiceWebSocketHandler(4, 5000, 262144, 256, 300_000, new SimpleMeterRegistry());
+
+		URI uri = URI.create("ws://localhost:8081/ws/voice?session=" + SESSION_ID);
+		for (int i = 0; i < subscribers; i++) {
+			handler.afterConnectionEstablished(new StubWebSocketSession("client-" + i, uri));
+		}
+
+		VoskResultDecoder decoder = new VoskResultDecoder();
+		RecognitionResultFactory factory = new RecognitionResultFactory(
+				new CommandMatcher(new CommandVocabulary()), new RussianNumberNormalizer());
+
+		List<String> corpus = DictationCorpus.utterances();
+		results = new RecognitionResult[corpus.size()];
+		for (int i = 0; i < results.length; i++) {
+			results[i] = factory.create(SESSION_ID, decoder.decode(DictationCorpus.voskJson(corpus.get(i))), 0);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		handler.cleanup();
+	}
+
+	@Benchmark
+	public void broadcast() {
+		int index = next;
+		next = index + 1 == results.length ? 0 : index + 1;
+		handler.publish(results[index]);
+	}
+}
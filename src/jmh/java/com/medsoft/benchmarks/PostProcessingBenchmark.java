@@ -0,0 +1,85 @@
+package com.medsoft.benchmarks;
+
+import com.medsoft.models.RecognitionResult;
+import com.medsoft.recognition.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Путь одного высказывания после декодера: разбор JSON Vosk, поиск команды,
+ * нормализация числительных и сборка RecognitionResult.
+ * Запуск: {@code mvn -Pjmh verify}; аллокации видны в метриках {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostProcessingBenchmark {
+
+	private VoskResultDecoder decoder;
+	private CommandMatcher commandMatcher;
+	private RussianNumberNormalizer numberNormalizer;
+	private RecognitionResultFactory resultFactory;
+
+	private String[] utterances;
+	private byte[][] voskJson;
+	private VoskResult[] decoded;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		decoder = new VoskResultDecoder();
+		commandMatcher = new CommandMatcher(new CommandVocabulary());
+		numberNormalizer = new RussianNumberNormalizer();
+		resultFactory = new RecognitionResultFactory(commandMatcher, numberNormalizer);
+
+		List<String> corpus = DictationCorpus.utterances();
+		utterances = corpus.toArray(new String[0]);
+		voskJson = new byte[utterances.length][];
+		decoded = new VoskResult[utterances.length];
+		for (int i = 0; i < utterances.length; i++) {
+			voskJson[i] = DictationCorpus.voskJson(utterances[i]);
+			decoded[i] = decoder.decode(voskJson[i]);
+		}
+	}
+
+	private int nextIndex() {
+		int index = next;
+		next = index + 1 == utterances.length ? 0 : index + 1;
+		return index;
+	}
+
+	@Benchmark
+	public VoskResult extractTextFromJson() {
+		return decoder.decode(voskJson[nextIndex()]);
+	}
+
+	@Benchmark
+	public boolean isCommand() {
+		return commandMatcher.isCommand(utterances[nextIndex()]);
+	}
+
+	@Benchmark
+	public CommandMatch identifyCommandType() {
+		return commandMatcher.match(utterances[nextIndex()]);
+	}
+
+	@Benchmark
+	public String mapDigitsInText() {
+		return numberNormalizer.normalize(utterances[nextIndex()]);
+	}
+
+	@Benchmark
+	public RecognitionResult createRecognitionResult() {
+		return resultFactory.create("bench", decoded[nextIndex()], 0);
+	}
+
+	@Benchmark
+	public RecognitionResult decodeAndCreateResult() {
+		return resultFactory.create("bench", decoder.decode(voskJson[nextIndex()]), 0);
+	}
+}
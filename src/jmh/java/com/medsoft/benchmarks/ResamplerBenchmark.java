@@ -0,0 +1,51 @@
+package com.medsoft.benchmarks;
+
+import com.medsoft.audio.PolyphaseResampler;
+import com.medsoft.audio.StreamFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приведение одного кадра браузера (4096 отсчётов) к 16 кГц моно.
+ * Кадр 48 кГц длится 85 мс, 44,1 кГц — 93 мс; результат стоит сравнивать
+ * с {@code voice.decode.accept_waveform} на тот же объём звука.
+ * Запуск: {@code mvn -Pjmh verify}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResamplerBenchmark {
+
+	private static final int FRAMES = 4096;
+
+	@Param({"48000/2/f32le", "44100/1/f32le", "48000/1/s16le"})
+	private String format;
+
+	private PolyphaseResampler resampler;
+	private byte[] block;
+
+	@Setup
+	public void setUp() {
+		String[] parts = format.split("/");
+		StreamFormat streamFormat = StreamFormat.parse(parts[0], parts[1], parts[2]);
+		resampler = new PolyphaseResampler(streamFormat, 16000, 32768);
+
+		block = new byte[FRAMES * streamFormat.bytesPerFrame()];
+		new Random(42).nextBytes(block);
+		if (streamFormat.encoding() == StreamFormat.Encoding.F32LE) {
+			for (int i = 3; i < block.length; i += 4) {
+				block[i] = (byte) (block[i] & 0xBF); // |x| < 2, без NaN и бесконечностей
+			}
+		}
+	}
+
+	@Benchmark
+	public int resampleFrame() {
+		return resampler.process(block, 0, block.length);
+	}
+}
@@ -0,0 +1,320 @@
+package com.medsoft.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.audio.StreamFormat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный генератор для сервера в профиле {@code loadtest}. Открывает N сессий:
+ * в {@code /ws/audio} звук отправляется в реальном темпе, из {@code /ws/voice}
+ * читаются результаты. Задержка результата считается от отправки кадра, в котором
+ * закончилась фраза ({@code audioEnd}), до получения результата клиентом, то есть
+ * через весь путь: приём звука, распознавание, команды, постобработка, рассылка.
+ * <p>
+ * Запуск: {@code mvn -Ploadtest verify -Dloadtest.args="--sessions 200 --duration 120"}.
+ * Параметры: {@code --url ws://localhost:8081}, {@code --sessions 50}, {@code --duration 60}
+ * (секунды), {@code --ramp-up 10} (секунды), {@code --format 16000/1/s16le}.
+ */
+public final class LoadGenerator {
+
+	private static final int FRAME_MS = 128;
+
+	private final URI baseUri;
+	private final int sessionCount;
+	private final Duration duration;
+	private final Duration rampUp;
+	private final StreamFormat format;
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final ScheduledExecutorService pacer =
+			Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+
+	private final List<VirtualClient> clients = new CopyOnWriteArrayList<>();
+	private final LatencyRecorder latencies = new LatencyRecorder();
+	private final AtomicLong finals = new AtomicLong();
+	private final AtomicLong commands = new AtomicLong();
+	private final AtomicLong partials = new AtomicLong();
+	private final AtomicLong backpressure = new AtomicLong();
+	private final AtomicLong failedSessions = new AtomicLong();
+	private final AtomicLong sentBytes = new AtomicLong();
+
+	private LoadGenerator(Map<String, String> options) {
+		this.baseUri = URI.create(options.getOrDefault("url", "ws://localhost:8081"));
+		this.sessionCount = Integer.parseInt(options.getOrDefault("sessions", "50"));
+		this.duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+		this.rampUp = Duration.ofSeconds(Long.parseLong(options.getOrDefault("ramp-up", "10")));
+		String[] parts = options.getOrDefault("format", "16000/1/s16le").split("/");
+		this.format = StreamFormat.parse(parts[0], parts.length > 1 ? parts[1] : null, parts.length > 2 ? parts[2] : null);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Ожидается --параметр значение: " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		new LoadGenerator(options).run();
+	}
+
+	private void run() throws InterruptedException {
+		System.out.printf("Сессий: %d, длительность: %d с, разгон: %d с, формат: %s, сервер: %s%n",
+				sessionCount, duration.toSeconds(), rampUp.toSeconds(), format, baseUri);
+
+		long rampStepNanos = sessionCount > 1 ? rampUp.toNanos() / (sessionCount - 1) : 0;
+		for (int i = 0; i < sessionCount; i++) {
+			pacer.schedule(this::startClient, i * rampStepNanos, TimeUnit.NANOSECONDS);
+		}
+
+		Thread.sleep(rampUp.toMillis());
+		latencies.reset();
+		finals.set(0);
+		partials.set(0);
+		commands.set(0);
+		sentBytes.set(0);
+		long measureStart = System.nanoTime();
+
+		Thread.sleep(duration.toMillis());
+		long measured = System.nanoTime() - measureStart;
+		clients.forEach(VirtualClient::stopSending);
+		Thread.sleep(2000);
+
+		report(measured);
+		clients.forEach(VirtualClient::close);
+		pacer.shutdownNow();
+	}
+
+	private void startClient() {
+		VirtualClient client = new VirtualClient();
+		try {
+			client.open();
+			clients.add(client);
+		} catch (Exception e) {
+			failedSessions.incrementAndGet();
+			System.err.println("Сессия не открыта: " + e.getMessage());
+		}
+	}
+
+	private void report(long measuredNanos) {
+		double seconds = measuredNanos / 1e9;
+		long[] sorted = latencies.sorted();
+		double bytesPerSecond = format.sampleRate() * (double) format.bytesPerFrame();
+
+		System.out.println();
+		System.out.printf("Сессий открыто: %d, не открыто: %d%n", clients.size(), failedSessions.get());
+		System.out.printf("Звук: %.1f с за %.1f с (%.1f потоков реального времени)%n",
+				sentBytes.get() / bytesPerSecond, seconds, sentBytes.get() / bytesPerSecond / seconds);
+		System.out.printf("Итоговых результатов: %d (%.1f/с), из них команд: %d; промежуточных: %d (%.1f/с)%n",
+				finals.get(), finals.get() / seconds, commands.get(), partials.get(), partials.get() / seconds);
+		System.out.printf("Уведомлений о перегрузке: %d%n", backpressure.get());
+		if (sorted.length == 0) {
+			System.out.println("Задержка: нет результатов");
+			return;
+		}
+		System.out.printf("Задержка результата, мс: p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f (n=%d)%n",
+				percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+				percentile(sorted, 0.999), sorted[sorted.length - 1] / 1e6, sorted.length);
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+	}
+
+	/** Одна сессия диктовки: поток звука и подписка на результаты. */
+	private final class VirtualClient {
+
+		private final CompletableFuture<String> sessionId = new CompletableFuture<>();
+		private final Random random = new Random();
+		private final byte[] frame;
+		private final double frameSeconds;
+
+		// Время отправки каждого кадра: конец кадра в секундах потока -> System.nanoTime()
+		private final List<long[]> sentAt = new ArrayList<>();
+		private long framesSent;
+
+		private WebSocket audio;
+		private WebSocket voice;
+		private ScheduledFuture<?> sender;
+		private CompletableFuture<WebSocket> sending;
+
+		private VirtualClient() {
+			int frames = format.sampleRate() * FRAME_MS / 1000;
+			this.frame = new byte[frames * format.bytesPerFrame()];
+			this.frameSeconds = FRAME_MS / 1000.0;
+		}
+
+		private void open() throws Exception {
+			URI audioUri = baseUri.resolve("/ws/audio?sampleRate=" + format.sampleRate()
+					+ "&channels=" + format.channels()
+					+ "&encoding=" + format.encoding().name().toLowerCase(Locale.ROOT));
+			audio = httpClient.newWebSocketBuilder()
+					.buildAsync(audioUri, new JsonListener(this::onAudioMessage))
+					.get(10, TimeUnit.SECONDS);
+			String id = sessionId.get(10, TimeUnit.SECONDS);
+
+			voice = httpClient.newWebSocketBuilder()
+					.buildAsync(baseUri.resolve("/ws/voice?session=" + id), new JsonListener(this::onResult))
+					.get(10, TimeUnit.SECONDS);
+
+			sending = CompletableFuture.completedFuture(audio);
+			sender = pacer.scheduleAtFixedRate(this::sendFrame, 0, FRAME_MS, TimeUnit.MILLISECONDS);
+		}
+
+		private void sendFrame() {
+			if (!sending.isDone()) {
+				return;
+			}
+			fillNoise();
+			synchronized (sentAt) {
+				framesSent++;
+				sentAt.add(new long[]{Math.round(framesSent * frameSeconds * 1000), System.nanoTime()});
+			}
+			sentBytes.addAndGet(frame.length);
+			sending = audio.sendBinary(ByteBuffer.wrap(frame), true);
+		}
+
+		/** Тихий шум: сервер с Vosk получит его как паузу, воспроизводящему бэкенду содержимое не важно. */
+		private void fillNoise() {
+			int sampleBytes = format.encoding().bytesPerSample();
+			for (int i = 0; i < frame.length; i += sampleBytes) {
+				if (format.encoding() == StreamFormat.Encoding.S16LE) {
+					int sample = random.nextInt(64) - 32;
+					frame[i] = (byte) sample;
+					frame[i + 1] = (byte) (sample >> 8);
+				} else {
+					int bits = Float.floatToIntBits((random.nextFloat() - 0.5f) / 512);
+					frame[i] = (byte) bits;
+					frame[i + 1] = (byte) (bits >> 8);
+					frame[i + 2] = (byte) (bits >> 16);
+					frame[i + 3] = (byte) (bits >> 24);
+				}
+			}
+		}
+
+		private void onAudioMessage(JsonNode message) {
+			switch (message.path("type").asText()) {
+				case "session" -> sessionId.complete(message.path("sessionId").asText());
+				case "backpressure" -> backpressure.incrementAndGet();
+				default -> { }
+			}
+		}
+
+		private void onResult(JsonNode message) {
+			long receivedAt = System.nanoTime();
+			if ("partial".equals(message.path("type").asText())) {
+				partials.incrementAndGet();
+				return;
+			}
+			if (!message.has("seq")) {
+				return;
+			}
+			finals.incrementAndGet();
+			if (message.path("command").asBoolean()) {
+				commands.incrementAndGet();
+			}
+
+			JsonNode audioEnd = message.get("audioEnd");
+			if (audioEnd != null && !audioEnd.isNull()) {
+				long sent = sentAtOf(Math.round(audioEnd.asDouble() * 1000));
+				if (sent != 0) {
+					latencies.record(receivedAt - sent);
+				}
+			}
+		}
+
+		/** Время отправки кадра, в котором находится момент {@code streamMs} потока. */
+		private long sentAtOf(long streamMs) {
+			synchronized (sentAt) {
+				int low = 0;
+				int high = sentAt.size() - 1;
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					if (sentAt.get(middle)[0] < streamMs) {
+						low = middle + 1;
+					} else {
+						high = middle;
+					}
+				}
+				return high >= 0 && sentAt.get(high)[0] >= streamMs ? sentAt.get(high)[1] : 0;
+			}
+		}
+
+		private void stopSending() {
+			if (sender != null) {
+				sender.cancel(false);
+			}
+		}
+
+		private void close() {
+			stopSending();
+			if (audio != null) {
+				audio.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+			}
+			if (voice != null) {
+				voice.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+			}
+		}
+	}
+
+	/** Собирает текстовое сообщение из фрагментов и разбирает JSON. */
+	private final class JsonListener implements WebSocket.Listener {
+
+		private final java.util.function.Consumer<JsonNode> handler;
+		private final StringBuilder text = new StringBuilder();
+
+		private JsonListener(java.util.function.Consumer<JsonNode> handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+			text.append(data);
+			if (last) {
+				try {
+					handler.accept(mapper.readTree(text.toString()));
+				} catch (Exception e) {
+					System.err.println("Некорректное сообщение: " + e.getMessage());
+				}
+				text.setLength(0);
+			}
+			webSocket.request(1);
+			return null;
+		}
+	}
+
+	/** Задержки в наносекундах; общий для всех сессий. */
+	private static final class LatencyRecorder {
+
+		private long[] values = new long[1 << 16];
+		private int size;
+
+		private synchronized void record(long nanos) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = nanos;
+		}
+
+		private synchronized void reset() {
+			size = 0;
+		}
+
+		private synchronized long[] sorted() {
+			long[] copy = Arrays.copyOf(values, size);
+			Arrays.sort(copy);
+			return copy;
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.medsoft.audio;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AudioChunk {
+
+	private final int index;
+	private final long offset;
+	private final int length;
+	private final double startTime;
+}
@@ -0,0 +1,104 @@
+package com.medsoft.audio;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись 16-битного PCM, отображённая в память. Понимает WAV (RIFF) и «сырой» PCM,
+ * для которого формат задаётся явно. Данные не копируются в кучу: потоки декодирования
+ * читают свои фрагменты через {@link #slice(long, int)}.
+ */
+@Getter
+public class PcmFile {
+
+	private final int sampleRate;
+	private final int channels;
+	private final ByteBuffer data;
+
+	private PcmFile(int sampleRate, int channels, ByteBuffer data) {
+		this.sampleRate = sampleRate;
+		this.channels = channels;
+		this.data = data;
+	}
+
+	public static PcmFile open(Path path, int rawSampleRate, int rawChannels) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Файл больше 2 ГБ не поддерживается");
+			}
+
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (size >= 12 && mapped.getInt(0) == 0x46464952 && mapped.getInt(8) == 0x45564157) {
+				return parseWav(mapped);
+			}
+			return new PcmFile(rawSampleRate, rawChannels, mapped.slice().order(ByteOrder.LITTLE_ENDIAN));
+		}
+	}
+
+	private static PcmFile parseWav(ByteBuffer buffer) {
+		long position = 12;
+		int sampleRate = 0;
+		int channels = 0;
+
+		while (position + 8 <= buffer.limit()) {
+			int chunkId = buffer.getInt((int) position);
+			int chunkSize = buffer.getInt((int) position + 4);
+			int body = (int) position + 8;
+
+			// Размеры берутся из загруженного файла: отрицательный или выходящий за файл
+			// размер зациклил бы разбор или увёл чтение за конец блока
+			if (chunkSize < 0 || chunkSize > buffer.limit() - body) {
+				throw new IllegalArgumentException("Некорректный размер блока WAV: " + Integer.toUnsignedString(chunkSize));
+			}
+
+			if (chunkId == 0x20746d66) {
+				if (chunkSize < 16) {
+					throw new IllegalArgumentException("Слишком короткий блок формата WAV: " + chunkSize);
+				}
+				int audioFormat = buffer.getShort(body) & 0xffff;
+				channels = buffer.getShort(body + 2) & 0xffff;
+				sampleRate = buffer.getInt(body + 4);
+				int bitsPerSample = buffer.getShort(body + 14) & 0xffff;
+
+				if ((audioFormat != 1 && audioFormat != 0xfffe) || bitsPerSample != 16) {
+					throw new IllegalArgumentException("Поддерживается только WAV PCM 16 бит");
+				}
+				if (channels == 0 || sampleRate <= 0) {
+					throw new IllegalArgumentException("Некорректный формат WAV: каналов " + channels + ", частота " + sampleRate);
+				}
+			} else if (chunkId == 0x61746164) {
+				if (sampleRate == 0) {
+					throw new IllegalArgumentException("В WAV нет описания формата перед данными");
+				}
+				ByteBuffer data = buffer.slice(body, chunkSize).order(ByteOrder.LITTLE_ENDIAN);
+				return new PcmFile(sampleRate, channels, data);
+			}
+
+			position = (long) body + chunkSize + (chunkSize & 1);
+		}
+
+		throw new IllegalArgumentException("В WAV не найден блок данных");
+	}
+
+	public int bytesPerFrame() {
+		return channels * 2;
+	}
+
+	public long durationMs() {
+		return data.limit() / bytesPerFrame() * 1000L / sampleRate;
+	}
+
+	public ByteBuffer slice(long offset, int length) {
+		return data.slice((int) offset, length).order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -0,0 +1,124 @@
+package com.medsoft.audio;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Кольцевой буфер PCM с одним писателем (захват) и одним читателем (декодер).
+ * Память выделяется один раз, запись и чтение не создают объектов.
+ * Кадр, который не помещается целиком, отбрасывается и учитывается как переполнение.
+ * Читатель при пустом буфере паркуется, писатель будит его после публикации данных.
+ */
+public class PcmRingBuffer {
+
+	private final byte[] buffer;
+	private final int mask;
+
+	private final AtomicLong writePosition = new AtomicLong();
+	private final AtomicLong readPosition = new AtomicLong();
+	private final AtomicLong overruns = new AtomicLong();
+	private final AtomicLong droppedBytes = new AtomicLong();
+
+	private volatile Thread consumer;
+	private volatile boolean consumerParked;
+
+	public PcmRingBuffer(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Ёмкость буфера должна быть степенью двойки: " + capacity);
+		}
+		this.buffer = new byte[capacity];
+		this.mask = capacity - 1;
+	}
+
+	public boolean write(byte[] src, int offset, int length) {
+		long tail = writePosition.get();
+		if (length > buffer.length - (int) (tail - readPosition.get())) {
+			overruns.incrementAndGet();
+			droppedBytes.addAndGet(length);
+			return false;
+		}
+
+		int start = (int) tail & mask;
+		int firstPart = Math.min(length, buffer.length - start);
+		System.arraycopy(src, offset, buffer, start, firstPart);
+		System.arraycopy(src, offset + firstPart, buffer, 0, length - firstPart);
+
+		writePosition.set(tail + length);
+
+		if (consumerParked) {
+			LockSupport.unpark(consumer);
+		}
+		return true;
+	}
+
+	/**
+	 * Читает до {@code maxLength} байт, ожидая данных не дольше {@code timeout}.
+	 * Возвращает 0, если данные так и не появились.
+	 */
+	public int read(byte[] dst, int offset, int maxLength, long timeout, TimeUnit unit) {
+		consumer = Thread.currentThread();
+		long head = readPosition.get();
+		int available = (int) (writePosition.get() - head);
+
+		if (available == 0) {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			consumerParked = true;
+			try {
+				while ((available = (int) (writePosition.get() - head)) == 0) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0 || Thread.currentThread().isInterrupted()) {
+						return 0;
+					}
+					LockSupport.parkNanos(this, remaining);
+				}
+			} finally {
+				consumerParked = false;
+			}
+		}
+
+		int length = Math.min(available, maxLength);
+		int start = (int) head & mask;
+		int firstPart = Math.min(length, buffer.length - start);
+		System.arraycopy(buffer, start, dst, offset, firstPart);
+		System.arraycopy(buffer, 0, dst, offset + firstPart, length - firstPart);
+
+		readPosition.lazySet(head + length);
+		return length;
+	}
+
+	public int capacity() {
+		return buffer.length;
+	}
+
+	public int available() {
+		return (int) (writePosition.get() - readPosition.get());
+	}
+
+	/** Свободное место; для писателя оно может только вырасти до следующей записи. */
+	public int free() {
+		return buffer.length - available();
+	}
+
+	/** Учитывает кадр, который писатель отбросил сам, не вызывая {@link #write}. */
+	public void drop(int length) {
+		overruns.incrementAndGet();
+		droppedBytes.addAndGet(length);
+	}
+
+	public double fillLevel() {
+		return (double) available() / buffer.length;
+	}
+
+	public long overruns() {
+		return overruns.get();
+	}
+
+	public long droppedBytes() {
+		return droppedBytes.get();
+	}
+
+	public long totalWritten() {
+		return writePosition.get();
+	}
+}
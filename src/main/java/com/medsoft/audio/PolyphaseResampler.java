@@ -0,0 +1,173 @@
+package com.medsoft.audio;
+
+/**
+ * Потоковое приведение звука клиента к 16-битному моно нужной частоты:
+ * каналы усредняются, частота меняется в рациональное число раз L/M
+ * полифазным фильтром (оконный sinc, окно Блэкмана, {@value #TAPS_PER_PHASE}
+ * отводов на фазу). Для каждого выходного отсчёта считается только одна фаза,
+ * поэтому стоимость не зависит от L.
+ * <p>
+ * Все буферы выделяются в конструкторе; между вызовами хранятся хвост фильтра
+ * и неполный кадр. Экземпляр принадлежит одному потоку-источнику звука.
+ */
+public class PolyphaseResampler {
+
+	private static final int TAPS_PER_PHASE = 24;
+	private static final double PASSBAND = 0.9;
+
+	private final StreamFormat format;
+	private final int frameBytes;
+	private final int maxInputBytes;
+	private final int up;
+	private final int down;
+	private final float[] filter;
+
+	private final byte[] raw;
+	private int rawFill;
+	private final float[] samples;
+	private int time;
+
+	private final byte[] output;
+
+	/**
+	 * @param maxInputBytes наибольший блок, передаваемый в {@link #process}
+	 */
+	public PolyphaseResampler(StreamFormat format, int targetRate, int maxInputBytes) {
+		this.format = format;
+		this.frameBytes = format.bytesPerFrame();
+		this.maxInputBytes = maxInputBytes;
+
+		int gcd = gcd(format.sampleRate(), targetRate);
+		this.up = targetRate / gcd;
+		this.down = format.sampleRate() / gcd;
+		this.filter = design(up, format.sampleRate(), targetRate);
+
+		this.raw = new byte[maxInputBytes + frameBytes];
+		int maxFrames = raw.length / frameBytes;
+		this.samples = new float[TAPS_PER_PHASE - 1 + maxFrames];
+		this.time = (TAPS_PER_PHASE - 1) * up;
+		this.output = new byte[(int) ((long) maxFrames * up / down + 2) * 2];
+	}
+
+	/**
+	 * Прототип длиной {@code up * TAPS_PER_PHASE} на частоте {@code up * inputRate},
+	 * разложенный по фазам: коэффициенты фазы p лежат подряд с индекса {@code p * TAPS_PER_PHASE}.
+	 */
+	private static float[] design(int up, int inputRate, int targetRate) {
+		int length = up * TAPS_PER_PHASE;
+		double cutoff = PASSBAND * 0.5 * Math.min(inputRate, targetRate) / ((double) up * inputRate);
+		double center = (length - 1) / 2.0;
+
+		double[] prototype = new double[length];
+		double sum = 0;
+		for (int n = 0; n < length; n++) {
+			double x = n - center;
+			double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+			double window = 0.42 - 0.5 * Math.cos(2 * Math.PI * n / (length - 1))
+					+ 0.08 * Math.cos(4 * Math.PI * n / (length - 1));
+			prototype[n] = sinc * window;
+			sum += prototype[n];
+		}
+
+		float[] phases = new float[length];
+		double gain = up / sum;
+		for (int phase = 0; phase < up; phase++) {
+			for (int tap = 0; tap < TAPS_PER_PHASE; tap++) {
+				phases[phase * TAPS_PER_PHASE + tap] = (float) (prototype[phase + tap * up] * gain);
+			}
+		}
+		return phases;
+	}
+
+	/**
+	 * Преобразует блок не длиннее {@link #maxInputBytes()}. Результат лежит
+	 * в {@link #output()}, возвращается его длина в байтах.
+	 */
+	public int process(byte[] data, int offset, int length) {
+		if (length > maxInputBytes) {
+			throw new IllegalArgumentException("Блок больше " + maxInputBytes + " байт");
+		}
+		System.arraycopy(data, offset, raw, rawFill, length);
+		rawFill += length;
+
+		int frames = rawFill / frameBytes;
+		int history = TAPS_PER_PHASE - 1;
+		downmix(frames, history);
+
+		int consumed = frames * frameBytes;
+		System.arraycopy(raw, consumed, raw, 0, rawFill - consumed);
+		rawFill -= consumed;
+
+		int available = history + frames;
+		int outputLength = 0;
+		int base;
+		while ((base = time / up) < available) {
+			int coefficients = (time - base * up) * TAPS_PER_PHASE;
+			float sum = 0;
+			for (int tap = 0; tap < TAPS_PER_PHASE; tap++) {
+				sum += filter[coefficients + tap] * samples[base - tap];
+			}
+
+			int sample = Math.round(sum * 32768f);
+			sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+			output[outputLength++] = (byte) sample;
+			output[outputLength++] = (byte) (sample >> 8);
+			time += down;
+		}
+
+		System.arraycopy(samples, frames, samples, 0, history);
+		time -= frames * up;
+		return outputLength;
+	}
+
+	private void downmix(int frames, int target) {
+		int channels = format.channels();
+		float scale = 1f / channels;
+		int position = 0;
+
+		for (int frame = 0; frame < frames; frame++) {
+			float sum = 0;
+			for (int channel = 0; channel < channels; channel++) {
+				if (format.encoding() == StreamFormat.Encoding.S16LE) {
+					sum += (short) ((raw[position] & 0xFF) | (raw[position + 1] << 8)) / 32768f;
+					position += 2;
+				} else {
+					sum += Float.intBitsToFloat((raw[position] & 0xFF) | (raw[position + 1] & 0xFF) << 8
+							| (raw[position + 2] & 0xFF) << 16 | raw[position + 3] << 24);
+					position += 4;
+				}
+			}
+			samples[target + frame] = sum * scale;
+		}
+	}
+
+	/**
+	 * Верхняя граница суммарного выхода {@link #process} для следующих {@code length}
+	 * байт входа, с учётом неполного кадра, оставшегося от прошлого вызова.
+	 */
+	public int maxOutputBytes(int length) {
+		long frames = (rawFill + (long) length) / frameBytes;
+		return (int) ((frames * up / down + 1) * 2);
+	}
+
+	public byte[] output() {
+		return output;
+	}
+
+	public int maxInputBytes() {
+		return maxInputBytes;
+	}
+
+	public StreamFormat format() {
+		return format;
+	}
+
+	private static int gcd(int a, int b) {
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+}
@@ -0,0 +1,162 @@
+package com.medsoft.audio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Архив звука одной сессии: каталог с сегментами сырого PCM, которые только дописываются,
+ * и индексом {@code index.tsv}. Строка индекса — имя сегмента, смещение его первого байта
+ * в потоке сессии и время начала записи сегмента. Новый сегмент начинается по достижении
+ * {@code segmentBytes} и при разрыве потока (потерянный блок), так что внутри сегмента
+ * звук всегда непрерывен.
+ * <p>
+ * Запись выполняет один поток архива; чтение диапазонов безопасно из любого потока.
+ */
+public class SegmentedAudioWriter implements AutoCloseable {
+
+	public static final String INDEX_FILE = "index.tsv";
+
+	private final String sessionId;
+	private final Path directory;
+	private final long segmentBytes;
+
+	private FileChannel channel;
+	private int segment = -1;
+	private long segmentStart;
+	private long segmentSize;
+
+	public SegmentedAudioWriter(String sessionId, Path directory, long segmentBytes) throws IOException {
+		this.sessionId = sessionId;
+		this.directory = Files.createDirectories(directory);
+		this.segmentBytes = segmentBytes;
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	/** Дописывает блок, начинающийся с байта {@code offset} потока сессии. */
+	public void write(long offset, ByteBuffer data) throws IOException {
+		if (channel == null || offset != segmentStart + segmentSize || segmentSize >= segmentBytes) {
+			roll(offset);
+		}
+		while (data.hasRemaining()) {
+			segmentSize += channel.write(data);
+		}
+	}
+
+	private void roll(long offset) throws IOException {
+		closeSegment();
+		segment++;
+		String name = String.format("segment-%05d.pcm", segment);
+		channel = FileChannel.open(directory.resolve(name), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		segmentStart = offset;
+		segmentSize = 0;
+
+		String line = name + '\t' + offset + '\t' + System.currentTimeMillis() + '\n';
+		Files.writeString(directory.resolve(INDEX_FILE), line, StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	private void closeSegment() throws IOException {
+		if (channel != null) {
+			channel.force(false);
+			channel.close();
+			channel = null;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeSegment();
+	}
+
+	public record Segment(Path file, long start, long length, long startedAtMillis) {
+		public long end() {
+			return start + length;
+		}
+	}
+
+	public static List<Segment> readIndex(Path directory) throws IOException {
+		List<Segment> segments = new ArrayList<>();
+		Path index = directory.resolve(INDEX_FILE);
+		if (!Files.exists(index)) {
+			return segments;
+		}
+		for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+			String[] parts = line.split("\t");
+			if (parts.length < 3) {
+				continue;
+			}
+			Path file = directory.resolve(parts[0]);
+			if (Files.exists(file)) {
+				segments.add(new Segment(file, Long.parseLong(parts[1]), Files.size(file), Long.parseLong(parts[2])));
+			}
+		}
+		return segments;
+	}
+
+	/**
+	 * Пишет в {@code out} WAV с байтами {@code [from, to)} потока сессии. Разрывы
+	 * между сегментами заполняются тишиной, чтобы время в файле совпадало со временем сессии.
+	 *
+	 * @return число байт PCM в ответе
+	 */
+	public static long copySpan(List<Segment> segments, long from, long to, int sampleRate,
+								OutputStream out) throws IOException {
+		long end = segments.isEmpty() ? from : Math.min(to, segments.get(segments.size() - 1).end());
+		long start = Math.min(from, end) & ~1L;
+		long length = (end - start) & ~1L;
+		writeWavHeader(out, length, sampleRate);
+
+		WritableByteChannel target = Channels.newChannel(out);
+		byte[] silence = new byte[8192];
+		long position = start;
+		for (Segment segment : segments) {
+			if (segment.end() <= position || segment.start() >= start + length) {
+				continue;
+			}
+			long spanEnd = Math.min(segment.end(), start + length);
+			for (long gap = segment.start() - position; gap > 0; gap -= silence.length) {
+				out.write(silence, 0, (int) Math.min(gap, silence.length));
+			}
+			position = Math.max(position, segment.start());
+
+			try (FileChannel channel = FileChannel.open(segment.file(), StandardOpenOption.READ)) {
+				long offset = position - segment.start();
+				long count = spanEnd - position;
+				while (count > 0) {
+					long copied = channel.transferTo(offset, count, target);
+					if (copied <= 0) {
+						break;
+					}
+					offset += copied;
+					count -= copied;
+				}
+			}
+			position = spanEnd;
+		}
+		out.flush();
+		return length;
+	}
+
+	private static void writeWavHeader(OutputStream out, long dataBytes, int sampleRate) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(0x46464952).putInt((int) (36 + dataBytes)).putInt(0x45564157);
+		header.putInt(0x20746d66).putInt(16).putShort((short) 1).putShort((short) 1)
+				.putInt(sampleRate).putInt(sampleRate * 2).putShort((short) 2).putShort((short) 16);
+		header.putInt(0x61746164).putInt((int) dataBytes);
+		out.write(header.array());
+	}
+}
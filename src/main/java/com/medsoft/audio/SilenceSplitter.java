@@ -0,0 +1,112 @@
+package com.medsoft.audio;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Делит длинную моно-запись на фрагменты по паузам, чтобы их можно было
+ * распознавать параллельно. Порог тишины считается от уровня шума самой записи.
+ * Если паузы долго нет, фрагмент режется в самом тихом месте последних секунд.
+ */
+public class SilenceSplitter {
+
+	private static final int FRAME_MS = 20;
+	private static final int MIN_THRESHOLD = 150;
+
+	private final int minSilenceMs;
+	private final int minChunkMs;
+	private final int maxChunkMs;
+
+	public SilenceSplitter(int minSilenceMs, int minChunkMs, int maxChunkMs) {
+		this.minSilenceMs = minSilenceMs;
+		this.minChunkMs = minChunkMs;
+		this.maxChunkMs = maxChunkMs;
+	}
+
+	public List<AudioChunk> split(PcmFile file) {
+		if (file.getChannels() != 1) {
+			throw new IllegalArgumentException("Разбиение по паузам поддерживает только моно");
+		}
+
+		ByteBuffer data = file.getData();
+		int frameBytes = file.getSampleRate() * FRAME_MS / 1000 * 2;
+		int frames = (data.limit() + frameBytes - 1) / frameBytes;
+		int[] energy = new int[frames];
+
+		for (int frame = 0; frame < frames; frame++) {
+			int start = frame * frameBytes;
+			int end = Math.min(start + frameBytes, data.limit() & ~1);
+			long sum = 0;
+			for (int i = start; i < end; i += 2) {
+				sum += Math.abs(data.getShort(i));
+			}
+			energy[frame] = end > start ? (int) (sum / ((end - start) / 2)) : 0;
+		}
+
+		int threshold = threshold(energy);
+		int minSilenceFrames = minSilenceMs / FRAME_MS;
+		int minChunkFrames = minChunkMs / FRAME_MS;
+		int maxChunkFrames = maxChunkMs / FRAME_MS;
+
+		List<AudioChunk> chunks = new ArrayList<>();
+		int chunkStart = 0;
+		int silenceStart = -1;
+
+		for (int frame = 0; frame < frames; frame++) {
+			if (energy[frame] < threshold) {
+				if (silenceStart < 0) {
+					silenceStart = frame;
+				}
+			} else {
+				if (silenceStart >= 0 && frame - silenceStart >= minSilenceFrames) {
+					int cut = (silenceStart + frame) / 2;
+					if (cut - chunkStart >= minChunkFrames) {
+						chunks.add(chunk(chunks.size(), chunkStart, cut, frameBytes, data.limit()));
+						chunkStart = cut;
+					}
+				}
+				silenceStart = -1;
+			}
+
+			if (frame - chunkStart + 1 >= maxChunkFrames) {
+				int cut = quietestFrame(energy, Math.max(chunkStart + minChunkFrames, frame - 250), frame) + 1;
+				chunks.add(chunk(chunks.size(), chunkStart, cut, frameBytes, data.limit()));
+				chunkStart = cut;
+				silenceStart = -1;
+			}
+		}
+
+		if (chunkStart < frames) {
+			chunks.add(chunk(chunks.size(), chunkStart, frames, frameBytes, data.limit()));
+		}
+		return chunks;
+	}
+
+	private static int threshold(int[] energy) {
+		if (energy.length == 0) {
+			return MIN_THRESHOLD;
+		}
+		int[] sorted = Arrays.copyOf(energy, energy.length);
+		Arrays.sort(sorted);
+		int noiseFloor = sorted[sorted.length / 10];
+		return Math.max(MIN_THRESHOLD, noiseFloor * 5 / 2);
+	}
+
+	private static int quietestFrame(int[] energy, int from, int to) {
+		int quietest = to;
+		for (int frame = from; frame <= to; frame++) {
+			if (energy[frame] < energy[quietest]) {
+				quietest = frame;
+			}
+		}
+		return quietest;
+	}
+
+	private static AudioChunk chunk(int index, int fromFrame, int toFrame, int frameBytes, int limit) {
+		long offset = (long) fromFrame * frameBytes;
+		int length = (int) (Math.min((long) toFrame * frameBytes, limit & ~1) - offset);
+		return new AudioChunk(index, offset, length, fromFrame * FRAME_MS / 1000.0);
+	}
+}
@@ -0,0 +1,76 @@
+package com.medsoft.audio;
+
+import java.util.Locale;
+
+/**
+ * Формат звука, который присылает клиент. Распознаватель принимает только
+ * {@link #RECOGNIZER}; остальное приводится к нему {@link PolyphaseResampler}.
+ */
+public record StreamFormat(int sampleRate, int channels, Encoding encoding) {
+
+	public enum Encoding {
+		S16LE(2), F32LE(4);
+
+		private final int bytesPerSample;
+
+		Encoding(int bytesPerSample) {
+			this.bytesPerSample = bytesPerSample;
+		}
+
+		public int bytesPerSample() {
+			return bytesPerSample;
+		}
+	}
+
+	public static final StreamFormat RECOGNIZER = new StreamFormat(16000, 1, Encoding.S16LE);
+
+	public StreamFormat {
+		if (sampleRate < 8000 || sampleRate > 192000) {
+			throw new IllegalArgumentException("Неподдерживаемая частота дискретизации: " + sampleRate);
+		}
+		if (channels < 1 || channels > 8) {
+			throw new IllegalArgumentException("Неподдерживаемое число каналов: " + channels);
+		}
+		if (encoding == null) {
+			throw new IllegalArgumentException("Не указан формат отсчётов");
+		}
+	}
+
+	/** Разбирает параметры клиента; отсутствующие берутся из {@link #RECOGNIZER}. */
+	public static StreamFormat parse(String sampleRate, String channels, String encoding) {
+		return new StreamFormat(
+				sampleRate != null ? parseInt(sampleRate) : RECOGNIZER.sampleRate,
+				channels != null ? parseInt(channels) : RECOGNIZER.channels,
+				encoding != null ? parseEncoding(encoding) : RECOGNIZER.encoding);
+	}
+
+	private static int parseInt(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Некорректный параметр формата звука: " + value);
+		}
+	}
+
+	private static Encoding parseEncoding(String value) {
+		for (Encoding encoding : Encoding.values()) {
+			if (encoding.name().equalsIgnoreCase(value)) {
+				return encoding;
+			}
+		}
+		throw new IllegalArgumentException("Неподдерживаемый формат отсчётов: " + value);
+	}
+
+	public int bytesPerFrame() {
+		return channels * encoding.bytesPerSample();
+	}
+
+	public boolean isRecognizerNative() {
+		return equals(RECOGNIZER);
+	}
+
+	@Override
+	public String toString() {
+		return sampleRate + "/" + channels + "/" + encoding.name().toLowerCase(Locale.ROOT);
+	}
+}
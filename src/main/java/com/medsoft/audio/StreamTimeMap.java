@@ -0,0 +1,46 @@
+package com.medsoft.audio;
+
+import java.util.Arrays;
+
+/**
+ * Соответствие между позицией в звуке, который получил распознаватель,
+ * и позицией в исходном потоке сессии. Детектор речи вырезает паузы,
+ * поэтому время в результатах Vosk отстаёт от времени записи; в точках
+ * возобновления речи сохраняется новое смещение.
+ */
+public class StreamTimeMap {
+
+	private final double bytesPerSecond;
+	private long[] decodedOffsets = new long[16];
+	private long[] sourceOffsets = new long[16];
+	private int size = 1;
+
+	public StreamTimeMap(int sampleRate) {
+		this.bytesPerSecond = sampleRate * 2.0;
+	}
+
+	/** Начиная с {@code decodedOffset} байт распознавателя, звук идёт с {@code sourceOffset} исходного потока. */
+	public void add(long decodedOffset, long sourceOffset) {
+		if (size == decodedOffsets.length) {
+			decodedOffsets = Arrays.copyOf(decodedOffsets, size * 2);
+			sourceOffsets = Arrays.copyOf(sourceOffsets, size * 2);
+		}
+		decodedOffsets[size] = decodedOffset;
+		sourceOffsets[size] = sourceOffset;
+		size++;
+	}
+
+	/** Переводит время распознавателя в секунды исходного потока. */
+	public double toSource(double decodedSeconds) {
+		long decoded = (long) (decodedSeconds * bytesPerSecond);
+		int index = Arrays.binarySearch(decodedOffsets, 0, size, decoded);
+		if (index < 0) {
+			index = -index - 2;
+		}
+		// Несколько точек с одним смещением: берём последнюю, начало речи после паузы
+		while (index + 1 < size && decodedOffsets[index + 1] == decoded) {
+			index++;
+		}
+		return (sourceOffsets[index] + (decoded - decodedOffsets[index])) / bytesPerSecond;
+	}
+}
@@ -0,0 +1,207 @@
+package com.medsoft.audio;
+
+/**
+ * Детектор речи перед распознавателем для потока PCM 16 бит, моно.
+ * Звук делится на кадры по 20 мс; кадр считается речью, если его средняя
+ * амплитуда заметно выше уровня шума, либо если амплитуда умеренная, но
+ * много переходов через ноль (глухие шипящие "с", "ш", "ф").
+ * После речи ещё {@code hangoverMs} звука пропускается как речь, а перед началом
+ * речи отдаётся накопленный {@code preRollMs} тишины, чтобы не срезать начало слова.
+ * Остальная тишина до распознавателя не доходит.
+ * <p>
+ * Все буферы выделяются в конструкторе; экземпляр принадлежит одному потоку декодирования.
+ */
+public class VoiceActivityGate {
+
+	public interface SpeechStartListener {
+		/**
+		 * @param outputOffset байт выхода детектора, с которого начинается речь (с предзахватом)
+		 * @param inputOffset  тот же байт во входном потоке
+		 */
+		void onSpeechStart(long outputOffset, long inputOffset);
+	}
+
+	private static final int FRAME_MS = 20;
+
+	private final int frameBytes;
+	private final double energyRatio;
+	private final double fricativeEnergyRatio;
+	private final double fricativeZeroCrossings;
+	private final int minEnergy;
+	private final int hangoverFrames;
+
+	private final byte[] frame;
+	private int frameFill;
+
+	private final byte[] preRoll;
+	private int preRollStart;
+	private int preRollFill;
+
+	private final byte[] output;
+	private int outputLength;
+	private int speechEndOffset;
+
+	private double noiseLevel;
+	private boolean speech;
+	private int hangoverLeft;
+
+	private long passedBytes;
+	private long skippedBytes;
+	private int skippedInLastCall;
+	private long speechSegments;
+
+	private SpeechStartListener speechStartListener;
+
+	/**
+	 * @param maxInputBytes наибольший размер блока, передаваемого в {@link #process}
+	 */
+	public VoiceActivityGate(int sampleRate, int maxInputBytes, int minEnergy, double energyRatio,
+							 double fricativeEnergyRatio, double fricativeZeroCrossings,
+							 int hangoverMs, int preRollMs) {
+		this.frameBytes = sampleRate * FRAME_MS / 1000 * 2;
+		this.minEnergy = minEnergy;
+		this.energyRatio = energyRatio;
+		this.fricativeEnergyRatio = fricativeEnergyRatio;
+		this.fricativeZeroCrossings = fricativeZeroCrossings;
+		this.hangoverFrames = Math.max(1, hangoverMs / FRAME_MS);
+		this.noiseLevel = minEnergy;
+
+		this.frame = new byte[frameBytes];
+		this.preRoll = new byte[Math.max(1, preRollMs / FRAME_MS) * frameBytes];
+		this.output = new byte[preRoll.length + maxInputBytes + frameBytes];
+	}
+
+	/**
+	 * Пропускает блок через детектор. Речь (с предзахватом и хвостом) складывается
+	 * в {@link #output()}, возвращается её длина. Если в блоке закончилась фраза,
+	 * {@link #speechEndOffset()} указывает, где именно.
+	 */
+	public int process(byte[] data, int length) {
+		outputLength = 0;
+		speechEndOffset = -1;
+		skippedInLastCall = 0;
+
+		int position = 0;
+		while (position < length) {
+			int chunk = Math.min(frameBytes - frameFill, length - position);
+			System.arraycopy(data, position, frame, frameFill, chunk);
+			frameFill += chunk;
+			position += chunk;
+
+			if (frameFill == frameBytes) {
+				classify();
+				frameFill = 0;
+			}
+		}
+		return outputLength;
+	}
+
+	private void classify() {
+		long sum = 0;
+		int crossings = 0;
+		int previous = 0;
+		for (int i = 0; i < frameBytes; i += 2) {
+			int sample = (short) ((frame[i] & 0xFF) | (frame[i + 1] << 8));
+			sum += Math.abs(sample);
+			if ((sample ^ previous) < 0) {
+				crossings++;
+			}
+			previous = sample;
+		}
+		int samples = frameBytes / 2;
+		double energy = (double) sum / samples;
+		double zeroCrossings = (double) crossings / samples;
+
+		boolean voiced = energy > Math.max(minEnergy, noiseLevel * energyRatio)
+				|| (energy > Math.max(minEnergy, noiseLevel * fricativeEnergyRatio)
+						&& zeroCrossings > fricativeZeroCrossings);
+
+		if (voiced) {
+			noiseLevel += (energy - noiseLevel) / 1024;
+			if (!speech) {
+				speech = true;
+				speechSegments++;
+				flushPreRoll();
+			}
+			hangoverLeft = hangoverFrames;
+			emit();
+			return;
+		}
+
+		noiseLevel += (energy - noiseLevel) * (energy < noiseLevel ? 0.2 : 0.02);
+
+		if (speech) {
+			emit();
+			if (--hangoverLeft == 0) {
+				speech = false;
+				speechEndOffset = outputLength;
+			}
+			return;
+		}
+
+		keepForPreRoll();
+	}
+
+	private void emit() {
+		System.arraycopy(frame, 0, output, outputLength, frameBytes);
+		outputLength += frameBytes;
+		passedBytes += frameBytes;
+	}
+
+	private void keepForPreRoll() {
+		if (preRollFill == preRoll.length) {
+			skippedBytes += frameBytes;
+			skippedInLastCall += frameBytes;
+			preRollStart = (preRollStart + frameBytes) % preRoll.length;
+			preRollFill -= frameBytes;
+		}
+		System.arraycopy(frame, 0, preRoll, (preRollStart + preRollFill) % preRoll.length, frameBytes);
+		preRollFill += frameBytes;
+	}
+
+	private void flushPreRoll() {
+		if (speechStartListener != null) {
+			speechStartListener.onSpeechStart(passedBytes, passedBytes + skippedBytes);
+		}
+		int first = Math.min(preRollFill, preRoll.length - preRollStart);
+		System.arraycopy(preRoll, preRollStart, output, outputLength, first);
+		System.arraycopy(preRoll, 0, output, outputLength + first, preRollFill - first);
+		outputLength += preRollFill;
+		passedBytes += preRollFill;
+		preRollStart = 0;
+		preRollFill = 0;
+	}
+
+	public void setSpeechStartListener(SpeechStartListener speechStartListener) {
+		this.speechStartListener = speechStartListener;
+	}
+
+	public byte[] output() {
+		return output;
+	}
+
+	/** Смещение в {@link #output()}, на котором закончилась фраза, или -1. */
+	public int speechEndOffset() {
+		return speechEndOffset;
+	}
+
+	public boolean inSpeech() {
+		return speech;
+	}
+
+	public int skippedInLastCall() {
+		return skippedInLastCall;
+	}
+
+	public long passedBytes() {
+		return passedBytes;
+	}
+
+	public long skippedBytes() {
+		return skippedBytes;
+	}
+
+	public long speechSegments() {
+		return speechSegments;
+	}
+}
@@ -0,0 +1,43 @@
+package com.medsoft.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Кэши чтения отчетов. Размер и время жизни ограничены, статистика попаданий
+ * публикуется в метриках {@code cache.gets} и на {@code /actuator/caches}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+	public static final String REPORTS = "reports";
+	public static final String RECENT_REPORTS = "recentReportsByDoctor";
+
+	@Bean
+	public CacheManagerCustomizer<CaffeineCacheManager> reportCaches(
+			@Value("${reports.cache.by-id.max-size:10000}") long byIdMaxSize,
+			@Value("${reports.cache.by-id.ttl:10m}") Duration byIdTtl,
+			@Value("${reports.cache.recent.max-size:1000}") long recentMaxSize,
+			@Value("${reports.cache.recent.ttl:1m}") Duration recentTtl) {
+		return cacheManager -> {
+			cacheManager.registerCustomCache(REPORTS, Caffeine.newBuilder()
+					.maximumSize(byIdMaxSize)
+					.expireAfterWrite(byIdTtl)
+					.recordStats()
+					.build());
+			cacheManager.registerCustomCache(RECENT_REPORTS, Caffeine.newBuilder()
+					.maximumSize(recentMaxSize)
+					.expireAfterWrite(recentTtl)
+					.recordStats()
+					.build());
+		};
+	}
+}
@@ -0,0 +1,252 @@
+package com.medsoft.controllers;
+
+import com.medsoft.models.OperationReport;
+import com.medsoft.models.dto.OperationReportDto;
+import com.medsoft.models.dto.ReportCursor;
+import com.medsoft.models.dto.ReportPage;
+import com.medsoft.models.dto.ReportSearchCriteria;
+import com.medsoft.services.OperationReportService;
+import com.medsoft.services.ReportDraftService;
+import com.medsoft.services.ReportExportService;
+import com.medsoft.services.ReportPdfService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@Slf4j
+public class ReportController {
+
+	private final OperationReportService operationReportService;
+	private final ReportDraftService reportDraftService;
+	private final ReportExportService reportExportService;
+	private final ReportPdfService reportPdfService;
+
+	@Value("${reports.bulk.max-size:50000}")
+	private int bulkMaxSize;
+
+	@Value("${reports.search.max-limit:200}")
+	private int searchMaxLimit;
+
+	/**
+	 * Поиск отчетов: {@code patient} и {@code doctor} ищутся по началу ФИО,
+	 * {@code q} по словам диагноза и описания операции, даты включительно.
+	 * Следующая страница запрашивается с {@code cursor} из предыдущего ответа.
+	 */
+	@GetMapping
+	public ResponseEntity<?> searchReports(
+			@RequestParam(required = false) String patient,
+			@RequestParam(required = false) String doctor,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(required = false) String q,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "50") int limit
+	) {
+		try {
+			ReportSearchCriteria criteria = ReportSearchCriteria.builder()
+					.patient(patient)
+					.doctor(doctor)
+					.createdFrom(from != null ? from.atStartOfDay() : null)
+					.createdTo(to != null ? to.plusDays(1).atStartOfDay() : null)
+					.text(q)
+					.cursor(cursor != null ? ReportCursor.decode(cursor) : null)
+					.limit(Math.max(1, Math.min(limit, searchMaxLimit)))
+					.build();
+
+			ReportPage page = operationReportService.searchReports(criteria);
+			return ResponseEntity.ok(page);
+
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		} catch (Exception e) {
+			log.error("Ошибка поиска отчетов", e);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	/**
+	 * Полная выгрузка отчетов в NDJSON или CSV для архива и статистики.
+	 * Строки читаются курсором и пишутся в ответ по мере чтения.
+	 */
+	@GetMapping("/export")
+	public ResponseEntity<?> exportReports(
+			@RequestParam(defaultValue = "ndjson") String format,
+			@RequestParam(required = false) String doctor,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+	) {
+		ReportExportService.Format exportFormat;
+		try {
+			exportFormat = ReportExportService.Format.parse(format);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		}
+
+		ReportSearchCriteria criteria = ReportSearchCriteria.builder()
+				.doctor(doctor)
+				.createdFrom(from != null ? from.atStartOfDay() : null)
+				.createdTo(to != null ? to.plusDays(1).atStartOfDay() : null)
+				.build();
+
+		StreamingResponseBody body = out -> reportExportService.export(criteria, exportFormat, out);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(exportFormat.contentType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=\"operation-reports." + exportFormat.extension() + "\"")
+				.body(body);
+	}
+
+	/**
+	 * Все отчеты под фильтрами одним ZIP, по PDF на отчет, для печати за день.
+	 * Архив пишется в ответ по мере печати.
+	 */
+	@GetMapping("/pdf")
+	public ResponseEntity<?> renderReportsZip(
+			@RequestParam(required = false) String doctor,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+	) {
+		ReportSearchCriteria criteria = ReportSearchCriteria.builder()
+				.doctor(doctor)
+				.createdFrom(from != null ? from.atStartOfDay() : null)
+				.createdTo(to != null ? to.plusDays(1).atStartOfDay() : null)
+				.build();
+
+		// Проверяем до начала потока: после первых байт статус ответа уже не поменять
+		if (!reportPdfService.isAvailable()) {
+			return pdfUnavailable();
+		}
+		StreamingResponseBody body = out -> reportPdfService.renderZip(criteria, out);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType("application/zip"))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"operation-reports.zip\"")
+				.body(body);
+	}
+
+	@GetMapping("/{id}/pdf")
+	public ResponseEntity<?> renderReport(@PathVariable Long id) {
+		Optional<OperationReport> report = operationReportService.getReport(id);
+		if (report.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND)
+					.body(Map.of("error", "Отчет " + id + " не найден"));
+		}
+		if (!reportPdfService.isAvailable()) {
+			return pdfUnavailable();
+		}
+
+		try {
+			byte[] pdf = reportPdfService.render(report.get());
+			return ResponseEntity.ok()
+					.contentType(MediaType.APPLICATION_PDF)
+					.header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"operation-report-" + id + ".pdf\"")
+					.body(pdf);
+
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.body(Map.of("error", "Очередь печати переполнена, повторите позже"));
+		} catch (TimeoutException e) {
+			// Срок считается с постановки в очередь: чаще всего это занятость пакетной печатью
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.body(Map.of("error", "Печать занята, повторите позже"));
+		} catch (Exception e) {
+			log.error("Ошибка печати отчета {}", id, e);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	private static ResponseEntity<?> pdfUnavailable() {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.body(Map.of("error", "Печать PDF недоступна: не найден шрифт"));
+	}
+
+	@GetMapping("/{id}")
+	public ResponseEntity<?> getReport(@PathVariable Long id) {
+		return operationReportService.getReport(id)
+				.<ResponseEntity<?>>map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+						.body(Map.of("error", "Отчет " + id + " не найден")));
+	}
+
+	@GetMapping("/recent")
+	public ResponseEntity<?> getRecentReports(@RequestParam String doctor) {
+		try {
+			return ResponseEntity.ok(operationReportService.getRecentReports(doctor));
+		} catch (Exception e) {
+			log.error("Ошибка чтения последних отчетов врача {}", doctor, e);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@GetMapping("/drafts/{sessionId}")
+	public ResponseEntity<?> getDraft(@PathVariable String sessionId) {
+		return reportDraftService.getDraft(sessionId)
+				.<ResponseEntity<?>>map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+						.body(Map.of("error", "Черновик " + sessionId + " не найден")));
+	}
+
+	@PostMapping("/drafts/{sessionId}/finalize")
+	public ResponseEntity<?> finalizeDraft(@PathVariable String sessionId) {
+		try {
+			return reportDraftService.finalizeDraft(sessionId)
+					.<ResponseEntity<?>>map(report -> ResponseEntity.ok(Map.of(
+							"status", "saved",
+							"reportId", report.getId(),
+							"createdAt", report.getCreatedAt()
+					)))
+					.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+							.body(Map.of("error", "Черновик " + sessionId + " не найден")));
+
+		} catch (Exception e) {
+			log.error("Ошибка сохранения черновика {}", sessionId, e);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@PostMapping("/bulk")
+	public ResponseEntity<?> saveReports(@RequestBody List<OperationReportDto> reports) {
+		if (reports.isEmpty() || reports.size() > bulkMaxSize) {
+			return ResponseEntity.badRequest()
+					.body(Map.of("error", "Ожидается от 1 до " + bulkMaxSize + " отчетов"));
+		}
+
+		try {
+			long start = System.currentTimeMillis();
+			List<Long> ids = operationReportService.createReports(reports);
+
+			log.info("Сохранено отчетов: {} за {} мс", ids.size(), System.currentTimeMillis() - start);
+
+			return ResponseEntity.ok(Map.of(
+					"status", "saved",
+					"count", ids.size(),
+					"reportIds", ids
+			));
+
+		} catch (Exception e) {
+			log.error("Ошибка пакетного сохранения отчетов", e);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(Map.of("error", e.getMessage()));
+		}
+	}
+}
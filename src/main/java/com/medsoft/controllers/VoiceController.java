@@ -1,15 +1,25 @@
 package com.medsoft.controllers;
 
+import com.medsoft.audio.PcmFile;
 import com.medsoft.models.OperationReport;
 import com.medsoft.models.dto.OperationReportDto;
+import com.medsoft.recognition.RecognitionCapacityException;
+import com.medsoft.services.AudioArchiveService;
+import com.medsoft.services.BatchTranscriptionService;
 import com.medsoft.services.OperationReportService;
 import com.medsoft.services.VoiceRecognitionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -22,36 +32,32 @@ public class VoiceController {
 
     private final VoiceRecognitionService voiceRecognitionService;
 	private final OperationReportService operationReportService;
+	private final BatchTranscriptionService batchTranscriptionService;
+	private final AudioArchiveService audioArchiveService;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
 
     @PostMapping("/start-continuous")
     public ResponseEntity<Map<String, Object>> startContinuousTest(
-            @RequestParam(defaultValue = "100000000") int durationMs
+            @RequestParam(defaultValue = "0") long durationMs
 	) {
         Map<String, Object> result = new HashMap<>();
 
         try {
             log.info("Запуск непрерывного распознавания на {} мс", durationMs);
 
-            voiceRecognitionService.startContinuousRecognition();
-
-            new Thread(() -> {
-                try {
-                    Thread.sleep(durationMs);
-                    voiceRecognitionService.stopContinuousRecognition();
-                    log.info("Непрерывное распознавание автоматически остановлено");
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
+            String sessionId = voiceRecognitionService.startMicrophoneSession(durationMs);
 
             result.put("status", "continuous_recognition_started");
+            result.put("sessionId", sessionId);
             result.put("durationMs", durationMs);
             result.put("message", "Распознавание запущено. Лог будет в консоли.");
             result.put("timestamp", LocalDateTime.now().format(formatter));
 
             return ResponseEntity.ok(result);
 
+        } catch (RecognitionCapacityException e) {
+            result.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(result);
         } catch (Exception e) {
             result.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(result);
@@ -59,13 +65,16 @@ public class VoiceController {
     }
 
 	@PostMapping("/stop-continuous")
-	public ResponseEntity<Map<String, Object>> stopContinuousRecognition() {
+	public ResponseEntity<Map<String, Object>> stopContinuousRecognition(
+			@RequestParam String sessionId
+	) {
 		Map<String, Object> result = new HashMap<>();
 
 		try {
-			voiceRecognitionService.stopContinuousRecognition();
+			voiceRecognitionService.stopSession(sessionId);
 
 			result.put("status", "continuous_recognition_stopped");
+			result.put("sessionId", sessionId);
 			result.put("timestamp", LocalDateTime.now().format(formatter));
 
 			log.info("Непрерывное распознавание остановлено вручную");
@@ -79,6 +88,173 @@ public class VoiceController {
 		}
 	}
 
+	@GetMapping("/model")
+	public ResponseEntity<Map<String, Object>> getModel() {
+		return ResponseEntity.ok(voiceRecognitionService.getModelInfo());
+	}
+
+	@PostMapping("/model")
+	public ResponseEntity<Map<String, Object>> reloadModel(@RequestParam String path) {
+		try {
+			voiceRecognitionService.reloadModel(path);
+			log.info("Запрошена загрузка модели {}", path);
+			return ResponseEntity.accepted().body(voiceRecognitionService.getModelInfo());
+
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@GetMapping("/sessions")
+	public ResponseEntity<Map<String, Object>> listSessions() {
+		List<Map<String, Object>> sessions = voiceRecognitionService.listSessions();
+		return ResponseEntity.ok(Map.of(
+				"active", sessions.size(),
+				"sessions", sessions
+		));
+	}
+
+	@GetMapping("/sessions/{sessionId}")
+	public ResponseEntity<Map<String, Object>> getSessionStats(@PathVariable String sessionId) {
+		Map<String, Object> stats = voiceRecognitionService.getSessionStats(sessionId);
+		return stats != null
+				? ResponseEntity.ok(stats)
+				: ResponseEntity.status(HttpStatus.NOT_FOUND)
+						.body(Map.of("error", "Сессия не найдена: " + sessionId));
+	}
+
+	/**
+	 * Фрагмент архивного звука сессии в WAV. Границы — {@code audioStart}/{@code audioEnd}
+	 * из результатов распознавания; без {@code to} отдаётся всё до конца записи.
+	 */
+	@GetMapping("/sessions/{sessionId}/audio")
+	public ResponseEntity<?> getSessionAudio(
+			@PathVariable String sessionId,
+			@RequestParam(defaultValue = "0") double from,
+			@RequestParam(defaultValue = "0") double to
+	) {
+		if (!isSessionId(sessionId)) {
+			return ResponseEntity.badRequest()
+					.body(Map.of("error", "Некорректный идентификатор сессии"));
+		}
+		Optional<Path> archive = audioArchiveService.find(sessionId);
+		if (archive.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND)
+					.body(Map.of("error", "Архив сессии не найден: " + sessionId));
+		}
+
+		StreamingResponseBody body = out -> audioArchiveService.writeWav(archive.get(), from, to, out);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType("audio/wav"))
+				.header("Content-Disposition", "attachment; filename=\"" + sessionId + ".wav\"")
+				.body(body);
+	}
+
+	/** Повторная пакетная расшифровка архивного звука сессии, например после смены модели. */
+	@PostMapping(value = "/sessions/{sessionId}/retranscribe", produces = "application/x-ndjson")
+	public ResponseEntity<?> retranscribeSession(
+			@PathVariable String sessionId,
+			@RequestParam(defaultValue = "0") double from,
+			@RequestParam(defaultValue = "0") double to
+	) {
+		if (!isSessionId(sessionId)) {
+			return ResponseEntity.badRequest()
+					.body(Map.of("error", "Некорректный идентификатор сессии"));
+		}
+		Optional<Path> archive = audioArchiveService.find(sessionId);
+		if (archive.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND)
+					.body(Map.of("error", "Архив сессии не найден: " + sessionId));
+		}
+
+		Path recordingPath = null;
+		try {
+			recordingPath = Files.createTempFile("archive-", ".wav");
+			try (var out = Files.newOutputStream(recordingPath)) {
+				audioArchiveService.writeWav(archive.get(), from, to, out);
+			}
+
+			PcmFile recording = batchTranscriptionService.open(recordingPath, 16000);
+			Path exported = recordingPath;
+
+			StreamingResponseBody body = out -> {
+				try {
+					batchTranscriptionService.transcribe(recording, out);
+				} finally {
+					Files.deleteIfExists(exported);
+				}
+			};
+
+			log.info("Повторная расшифровка архива сессии {}", sessionId);
+			return ResponseEntity.ok()
+					.contentType(MediaType.parseMediaType("application/x-ndjson"))
+					.body(body);
+
+		} catch (Exception e) {
+			deleteQuietly(recordingPath);
+			log.error("Ошибка повторной расшифровки сессии {}", sessionId, e);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@PostMapping(value = "/transcribe", produces = "application/x-ndjson")
+	public ResponseEntity<?> transcribeRecording(
+			@RequestParam("file") MultipartFile file,
+			@RequestParam(defaultValue = "16000") int sampleRate
+	) {
+		Path recordingPath = null;
+		try {
+			recordingPath = Files.createTempFile("dictation-", ".pcm");
+			file.transferTo(recordingPath);
+
+			PcmFile recording = batchTranscriptionService.open(recordingPath, sampleRate);
+			Path uploaded = recordingPath;
+
+			StreamingResponseBody body = out -> {
+				try {
+					batchTranscriptionService.transcribe(recording, out);
+				} finally {
+					Files.deleteIfExists(uploaded);
+				}
+			};
+
+			log.info("Принята запись {} для пакетной расшифровки", file.getOriginalFilename());
+			return ResponseEntity.ok()
+					.contentType(MediaType.parseMediaType("application/x-ndjson"))
+					.body(body);
+
+		} catch (IllegalArgumentException e) {
+			deleteQuietly(recordingPath);
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		} catch (Exception e) {
+			deleteQuietly(recordingPath);
+			log.error("Ошибка приёма записи для расшифровки", e);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	/** Идентификатор сессии — UUID в каноническом виде, как его выдаёт {@code startSession}. */
+	private static boolean isSessionId(String sessionId) {
+		try {
+			return UUID.fromString(sessionId).toString().equals(sessionId);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		if (path == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			log.warn("Не удалось удалить временный файл {}", path);
+		}
+	}
+
 	@PostMapping("/save-report")
 	public ResponseEntity<?> saveOperationReport(
 			@RequestBody OperationReportDto reportDto
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 public class OperationReport {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operation_reports_seq")
+	@SequenceGenerator(name = "operation_reports_seq", sequenceName = "operation_reports_seq", allocationSize = 50)
 	private Long id;
 
 	@Column(nullable = false)
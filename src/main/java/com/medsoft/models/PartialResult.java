@@ -0,0 +1,19 @@
+package com.medsoft.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Промежуточная гипотеза распознавания. Передаётся только изменившийся хвост:
+ * клиент оставляет первые {@code offset} символов предыдущей гипотезы и дописывает {@code text}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartialResult {
+    private final String type = "partial";
+    private String sessionId;
+    private int offset;
+    private String text;
+}
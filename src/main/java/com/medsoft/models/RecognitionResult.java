@@ -1,16 +1,36 @@
 package com.medsoft.models;
 
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Builder
 public class RecognitionResult {
+    private String sessionId;
+    /** Порядковый номер итогового результата в сессии, с 1; по нему клиент догоняет пропущенное. */
+    private long seq;
     private String text;
     private boolean isCommand;
     private String recognizedCommand;
+    /** Поле формы, на которое переключает команда, например {@code diagnosisField}. */
+    private String commandField;
     private double confidence;
+    /** Задержка от захвата последнего кадра фразы до готового результата. */
     private long processingTimeMs;
+    private double startTime;
+    private double endTime;
+    /**
+     * Положение фразы в исходном звуке сессии, секунды. В отличие от {@code startTime}
+     * учитывает паузы, вырезанные детектором речи, поэтому по нему фрагмент
+     * берётся из архива. {@code null} для пакетной расшифровки.
+     */
+    private Double audioStart;
+    private Double audioEnd;
+    private List<RecognizedWord> words;
 }
@@ -0,0 +1,15 @@
+package com.medsoft.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecognizedWord {
+    private String word;
+    private double start;
+    private double end;
+    private double conf;
+}
@@ -0,0 +1,73 @@
+package com.medsoft.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.medsoft.models.dto.OperationReportDto;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Черновик отчета сессии диктовки. Поля идут в том же порядке, что и в форме,
+ * команды "следующее"/"предыдущее" переключают {@code activeField} по этому порядку.
+ */
+@Data
+@NoArgsConstructor
+public class ReportDraft {
+
+	public static final List<String> FIELDS = List.of(
+			"patientFullName",
+			"doctorFullName",
+			"diagnosis",
+			"operationDescription",
+			"fillerFullName",
+			"personalNumber"
+	);
+
+	/** Поле голосовой команды из {@code CommandVocabulary} в поле отчета. */
+	public static final Map<String, String> COMMAND_FIELDS = Map.of(
+			"patientField", "patientFullName",
+			"doctorField", "doctorFullName",
+			"diagnosisField", "diagnosis",
+			"operationField", "operationDescription",
+			"fillerField", "fillerFullName",
+			"personalNumberField", "personalNumber"
+	);
+
+	private String sessionId;
+	private Map<String, String> fields = new LinkedHashMap<>();
+	private String activeField = FIELDS.get(0);
+	private long version;
+	private LocalDateTime updatedAt;
+
+	public ReportDraft(String sessionId) {
+		this.sessionId = sessionId;
+		FIELDS.forEach(field -> fields.put(field, ""));
+		this.updatedAt = LocalDateTime.now();
+	}
+
+	public ReportDraft copy() {
+		ReportDraft copy = new ReportDraft();
+		copy.sessionId = sessionId;
+		copy.fields = new LinkedHashMap<>(fields);
+		copy.activeField = activeField;
+		copy.version = version;
+		copy.updatedAt = updatedAt;
+		return copy;
+	}
+
+	@JsonIgnore
+	public OperationReportDto toReportDto() {
+		OperationReportDto dto = new OperationReportDto();
+		dto.setPatientFullName(fields.get("patientFullName"));
+		dto.setDoctorFullName(fields.get("doctorFullName"));
+		dto.setDiagnosis(fields.get("diagnosis"));
+		dto.setOperationDescription(fields.get("operationDescription"));
+		dto.setFillerFullName(fields.get("fillerFullName"));
+		dto.setPersonalNumber(fields.get("personalNumber"));
+		return dto;
+	}
+}
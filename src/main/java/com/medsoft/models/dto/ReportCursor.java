@@ -0,0 +1,34 @@
+package com.medsoft.models.dto;
+
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Позиция в выдаче, отсортированной по {@code (createdAt, id)} по убыванию.
+ * Клиенту отдаётся как непрозрачная строка.
+ */
+@Data
+public class ReportCursor {
+
+	private final LocalDateTime createdAt;
+	private final long id;
+
+	public String encode() {
+		String raw = createdAt + "|" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static ReportCursor decode(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int separator = raw.indexOf('|');
+			return new ReportCursor(LocalDateTime.parse(raw.substring(0, separator)),
+					Long.parseLong(raw.substring(separator + 1)));
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.medsoft.models.dto;
+
+import com.medsoft.models.OperationReport;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ReportPage {
+
+	private List<OperationReport> items;
+	/** Курсор следующей страницы или {@code null}, если выдача закончилась. */
+	private String nextCursor;
+}
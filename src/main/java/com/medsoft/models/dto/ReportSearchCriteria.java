@@ -0,0 +1,23 @@
+package com.medsoft.models.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Фильтры поиска отчетов. Пустые поля не ограничивают выборку,
+ * {@code cursor} продолжает выдачу с места, где закончилась предыдущая страница.
+ */
+@Data
+@Builder
+public class ReportSearchCriteria {
+
+	private String patient;
+	private String doctor;
+	private LocalDateTime createdFrom;
+	private LocalDateTime createdTo;
+	private String text;
+	private ReportCursor cursor;
+	private int limit;
+}
@@ -0,0 +1,268 @@
+package com.medsoft.pdf;
+
+import com.medsoft.models.OperationReport;
+import org.apache.fontbox.ttf.CmapLookup;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Печатает отчеты по {@link ReportPdfTemplate}. Шрифты TrueType разбираются
+ * один раз в конструкторе и используются для всех документов: в каждый PDF
+ * встраивается только подмножество использованных глифов.
+ * <p>
+ * Разобранный шрифт PDFBox не потокобезопасен, поэтому экземпляр принадлежит
+ * одному потоку печати.
+ */
+public class ReportPdfRenderer implements Closeable {
+
+	private static final int INITIAL_BUFFER_BYTES = 32 * 1024;
+	private static final float LABEL_GAP = 8;
+	private static final float BLOCK_GAP = 6;
+
+	private final ReportPdfTemplate template;
+	private final Font regular;
+	private final Font bold;
+	private final float labelColumn;
+
+	public ReportPdfRenderer(ReportPdfTemplate template, byte[] regularFont, byte[] boldFont) throws IOException {
+		this.template = template;
+		this.regular = new Font(regularFont);
+		this.bold = boldFont != null ? new Font(boldFont) : regular;
+
+		float widest = 0;
+		for (ReportPdfTemplate.Field field : template.fields()) {
+			if (!field.block()) {
+				widest = Math.max(widest, bold.width(field.label(), template.fontSize()));
+			}
+		}
+		this.labelColumn = widest + LABEL_GAP;
+	}
+
+	public byte[] render(OperationReport report) throws IOException {
+		try (PDDocument document = new PDDocument()) {
+			PDDocumentInformation info = document.getDocumentInformation();
+			info.setTitle(template.title() + " №" + report.getId());
+			info.setAuthor(report.getDoctorFullName());
+			info.setCreationDate(Calendar.getInstance());
+
+			try (Pages pages = new Pages(document,
+					PDType0Font.load(document, regular.ttf, true),
+					PDType0Font.load(document, bold.ttf, true))) {
+				writeReport(pages, report);
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_BUFFER_BYTES);
+			document.save(out);
+			return out.toByteArray();
+		}
+	}
+
+	private void writeReport(Pages pages, OperationReport report) throws IOException {
+		float size = template.fontSize();
+		float lineHeight = size * template.leading();
+		float width = template.page().getWidth() - 2 * template.margin();
+
+		if (!template.title().isEmpty()) {
+			float titleWidth = bold.width(template.title(), template.titleSize());
+			pages.line(pages.boldFont, template.titleSize(), template.titleSize() * template.leading(),
+					template.margin() + (width - titleWidth) / 2, bold.printable(template.title()));
+			pages.skip(lineHeight);
+		}
+
+		for (ReportPdfTemplate.Field field : template.fields()) {
+			String value = field.valueOf(report);
+			if (field.block()) {
+				pages.skip(BLOCK_GAP);
+				pages.line(pages.boldFont, size, lineHeight, template.margin(), bold.printable(field.label()));
+				for (String line : wrap(value, width, size)) {
+					pages.line(pages.regularFont, size, lineHeight, template.margin(), line);
+				}
+				pages.skip(BLOCK_GAP);
+				continue;
+			}
+
+			List<String> lines = wrap(value, width - labelColumn, size);
+			pages.line(pages.boldFont, size, 0, template.margin(), bold.printable(field.label()));
+			for (String line : lines) {
+				pages.line(pages.regularFont, size, lineHeight, template.margin() + labelColumn, line);
+			}
+		}
+	}
+
+	/** Разбивает текст на строки не шире {@code width}: по абзацам, затем по словам. */
+	private List<String> wrap(String text, float width, float size) {
+		List<String> lines = new ArrayList<>();
+		for (String paragraph : text.split("\r?\n|\r", -1)) {
+			StringBuilder line = new StringBuilder();
+			float lineWidth = 0;
+			float spaceWidth = regular.width(" ", size);
+
+			for (String word : regular.printable(paragraph).split(" +")) {
+				if (word.isEmpty()) {
+					continue;
+				}
+				float wordWidth = regular.width(word, size);
+				if (line.length() > 0 && lineWidth + spaceWidth + wordWidth <= width) {
+					line.append(' ').append(word);
+					lineWidth += spaceWidth + wordWidth;
+					continue;
+				}
+				if (line.length() > 0) {
+					lines.add(line.toString());
+					line.setLength(0);
+				}
+				// Слово длиннее строки режется по символам
+				while (wordWidth > width && word.length() > 1) {
+					int cut = fitting(word, width, size);
+					lines.add(word.substring(0, cut));
+					word = word.substring(cut);
+					wordWidth = regular.width(word, size);
+				}
+				line.append(word);
+				lineWidth = wordWidth;
+			}
+			lines.add(line.toString());
+		}
+		return lines;
+	}
+
+	private int fitting(String word, float width, float size) {
+		float used = 0;
+		int i = 0;
+		while (i < word.length()) {
+			int codePoint = word.codePointAt(i);
+			used += regular.width(codePoint, size);
+			if (used > width) {
+				break;
+			}
+			i += Character.charCount(codePoint);
+		}
+		return Math.max(i, Character.charCount(word.codePointAt(0)));
+	}
+
+	@Override
+	public void close() throws IOException {
+		regular.ttf.close();
+		if (bold != regular) {
+			bold.ttf.close();
+		}
+	}
+
+	/** Разобранный шрифт с таблицей символов и метриками для расчёта ширины строк. */
+	private static final class Font {
+
+		private final TrueTypeFont ttf;
+		private final CmapLookup cmap;
+		private final float unitsPerEm;
+
+		private Font(byte[] data) throws IOException {
+			this.ttf = new TTFParser().parse(new RandomAccessReadBuffer(data));
+			this.cmap = ttf.getUnicodeCmapLookup();
+			this.unitsPerEm = ttf.getUnitsPerEm();
+		}
+
+		private float width(int codePoint, float size) {
+			try {
+				return ttf.getAdvanceWidth(cmap.getGlyphId(codePoint)) * size / unitsPerEm;
+			} catch (IOException e) {
+				throw new IllegalStateException("Не удалось прочитать метрики шрифта", e);
+			}
+		}
+
+		private float width(String text, float size) {
+			float width = 0;
+			for (int i = 0; i < text.length(); ) {
+				int codePoint = text.codePointAt(i);
+				width += width(codePoint, size);
+				i += Character.charCount(codePoint);
+			}
+			return width;
+		}
+
+		/** Управляющие символы заменяются пробелом, символы без глифа в шрифте — «?». */
+		private String printable(String text) {
+			StringBuilder result = null;
+			for (int i = 0; i < text.length(); ) {
+				int codePoint = text.codePointAt(i);
+				int replacement = Character.isISOControl(codePoint) ? ' '
+						: cmap.getGlyphId(codePoint) == 0 ? '?' : codePoint;
+				if (replacement != codePoint && result == null) {
+					result = new StringBuilder(text.length()).append(text, 0, i);
+				}
+				if (result != null) {
+					result.appendCodePoint(replacement);
+				}
+				i += Character.charCount(codePoint);
+			}
+			return result != null ? result.toString() : text;
+		}
+	}
+
+	/** Курсор по страницам документа: новая страница начинается, когда строка не помещается. */
+	private final class Pages implements Closeable {
+
+		private final PDDocument document;
+		private final PDType0Font regularFont;
+		private final PDType0Font boldFont;
+
+		private PDPageContentStream content;
+		private float y;
+
+		private Pages(PDDocument document, PDType0Font regularFont, PDType0Font boldFont) {
+			this.document = document;
+			this.regularFont = regularFont;
+			this.boldFont = boldFont;
+		}
+
+		/**
+		 * Пишет строку с базовой линией на текущей позиции и сдвигается вниз на
+		 * {@code advance}; при {@code advance == 0} следующая строка встанет рядом.
+		 */
+		private void line(PDType0Font font, float size, float advance, float x, String text) throws IOException {
+			if (content == null || y - size < template.margin()) {
+				newPage();
+			}
+			if (!text.isEmpty()) {
+				content.beginText();
+				content.setFont(font, size);
+				content.newLineAtOffset(x, y - size);
+				content.showText(text);
+				content.endText();
+			}
+			y -= advance;
+		}
+
+		private void skip(float height) {
+			y -= height;
+		}
+
+		private void newPage() throws IOException {
+			close();
+			PDPage page = new PDPage(template.page());
+			document.addPage(page);
+			content = new PDPageContentStream(document, page);
+			y = template.page().getHeight() - template.margin();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (content != null) {
+				content.close();
+				content = null;
+			}
+		}
+	}
+}
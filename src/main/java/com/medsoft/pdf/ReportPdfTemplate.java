@@ -0,0 +1,82 @@
+package com.medsoft.pdf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.models.OperationReport;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Разметка печатной формы отчета: формат страницы, поля, заголовок и кегль.
+ * Читается из JSON один раз при старте; названия полей проверяются сразу,
+ * так что ошибка в шаблоне не доживает до первой печати.
+ *
+ * @param fields поля в порядке вывода; {@code block} — подпись отдельной строкой,
+ *               значение абзацем на всю ширину (для длинных текстов)
+ */
+public record ReportPdfTemplate(PDRectangle page, float margin, String title, float titleSize,
+								float fontSize, float leading, List<Field> fields) {
+
+	private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+
+	private static final Map<String, Function<OperationReport, Object>> VALUES = Map.of(
+			"id", OperationReport::getId,
+			"patientFullName", OperationReport::getPatientFullName,
+			"doctorFullName", OperationReport::getDoctorFullName,
+			"diagnosis", OperationReport::getDiagnosis,
+			"operationDescription", OperationReport::getOperationDescription,
+			"fillerFullName", OperationReport::getFillerFullName,
+			"personalNumber", OperationReport::getPersonalNumber,
+			"createdAt", report -> report.getCreatedAt() != null ? DATE_TIME.format(report.getCreatedAt()) : null
+	);
+
+	public record Field(String label, Function<OperationReport, Object> value, boolean block) {
+
+		public String valueOf(OperationReport report) {
+			Object value = this.value.apply(report);
+			return value != null ? value.toString() : "";
+		}
+	}
+
+	public static ReportPdfTemplate load(InputStream in, ObjectMapper mapper) throws IOException {
+		JsonNode root = mapper.readTree(in);
+
+		List<Field> fields = new ArrayList<>();
+		for (JsonNode field : root.path("fields")) {
+			String name = field.path("field").asText();
+			Function<OperationReport, Object> value = VALUES.get(name);
+			if (value == null) {
+				throw new IllegalArgumentException("Неизвестное поле в шаблоне PDF: " + name);
+			}
+			fields.add(new Field(field.path("label").asText(name), value, field.path("block").asBoolean(false)));
+		}
+		if (fields.isEmpty()) {
+			throw new IllegalArgumentException("В шаблоне PDF нет полей");
+		}
+
+		return new ReportPdfTemplate(
+				pageSize(root.path("page").asText("A4")),
+				(float) root.path("margin").asDouble(56),
+				root.path("title").asText(""),
+				(float) root.path("titleSize").asDouble(16),
+				(float) root.path("fontSize").asDouble(11),
+				(float) root.path("leading").asDouble(1.35),
+				List.copyOf(fields));
+	}
+
+	private static PDRectangle pageSize(String name) {
+		return switch (name) {
+			case "A4" -> PDRectangle.A4;
+			case "A5" -> PDRectangle.A5;
+			case "LETTER" -> PDRectangle.LETTER;
+			default -> throw new IllegalArgumentException("Неизвестный формат страницы: " + name);
+		};
+	}
+}
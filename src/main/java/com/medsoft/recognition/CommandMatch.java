@@ -0,0 +1,15 @@
+package com.medsoft.recognition;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CommandMatch {
+
+	public static final CommandMatch NONE = new CommandMatch(false, "", null);
+
+	private final boolean command;
+	private final String type;
+	private final String field;
+}
@@ -0,0 +1,179 @@
+package com.medsoft.recognition;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Автомат Ахо — Корасик по словарю команд. Строится один раз, после чего
+ * один проход по тексту без выделения памяти определяет и признак команды, и её тип.
+ * Переходы хранятся плоской таблицей с уже разрешёнными failure-ссылками.
+ */
+@Component
+public class CommandMatcher {
+
+	private static final int NO_RANK = Integer.MAX_VALUE;
+
+	private final int[] alphabet;
+	private final int alphabetSize;
+	private final int[] transitions;
+	private final boolean[] triggers;
+	private final int[] typeRanks;
+	private final int[] fieldRanks;
+	private final String[] types;
+	private final String[] fields;
+	private final CommandMatch[] matches;
+
+	public CommandMatcher(CommandVocabulary vocabulary) {
+		List<CommandPattern> patterns = vocabulary.patterns();
+
+		char maxChar = 0;
+		for (CommandPattern pattern : patterns) {
+			for (char c : normalize(pattern.getPhrase()).toCharArray()) {
+				maxChar = (char) Math.max(maxChar, c);
+			}
+		}
+
+		alphabet = new int[maxChar + 1];
+		int symbols = 1;
+		for (CommandPattern pattern : patterns) {
+			for (char c : normalize(pattern.getPhrase()).toCharArray()) {
+				if (alphabet[c] == 0) {
+					alphabet[c] = symbols++;
+				}
+			}
+		}
+		alphabetSize = symbols;
+
+		List<int[]> trie = new ArrayList<>();
+		trie.add(new int[alphabetSize]);
+		List<List<Integer>> outputs = new ArrayList<>();
+		outputs.add(new ArrayList<>());
+
+		for (int p = 0; p < patterns.size(); p++) {
+			int state = 0;
+			for (char c : normalize(patterns.get(p).getPhrase()).toCharArray()) {
+				int symbol = alphabet[c];
+				if (trie.get(state)[symbol] == 0) {
+					trie.get(state)[symbol] = trie.size();
+					trie.add(new int[alphabetSize]);
+					outputs.add(new ArrayList<>());
+				}
+				state = trie.get(state)[symbol];
+			}
+			outputs.get(state).add(p);
+		}
+
+		int states = trie.size();
+		transitions = new int[states * alphabetSize];
+		triggers = new boolean[states];
+		typeRanks = new int[states];
+		fieldRanks = new int[states];
+		Arrays.fill(typeRanks, NO_RANK);
+		Arrays.fill(fieldRanks, NO_RANK);
+
+		types = new String[patterns.size()];
+		fields = new String[patterns.size()];
+		for (int p = 0; p < patterns.size(); p++) {
+			types[p] = patterns.get(p).getType();
+			fields[p] = patterns.get(p).getField();
+		}
+
+		int[] failure = new int[states];
+		Deque<Integer> queue = new ArrayDeque<>();
+		for (int symbol = 0; symbol < alphabetSize; symbol++) {
+			int next = trie.get(0)[symbol];
+			transitions[symbol] = next;
+			if (next != 0) {
+				queue.add(next);
+			}
+		}
+
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			mergeOutputs(state, failure[state], outputs.get(state), patterns);
+
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int next = trie.get(state)[symbol];
+				int fallback = transitions[failure[state] * alphabetSize + symbol];
+				if (next != 0) {
+					failure[next] = fallback;
+					transitions[state * alphabetSize + symbol] = next;
+					queue.add(next);
+				} else {
+					transitions[state * alphabetSize + symbol] = fallback;
+				}
+			}
+		}
+
+		matches = new CommandMatch[patterns.size() + 1];
+	}
+
+	private void mergeOutputs(int state, int failureState, List<Integer> own, List<CommandPattern> patterns) {
+		triggers[state] = triggers[failureState];
+		typeRanks[state] = typeRanks[failureState];
+		fieldRanks[state] = fieldRanks[failureState];
+
+		for (int p : own) {
+			CommandPattern pattern = patterns.get(p);
+			triggers[state] |= pattern.isTrigger();
+			if (pattern.getType() != null && !pattern.getType().isBlank()) {
+				typeRanks[state] = Math.min(typeRanks[state], p);
+			}
+			if (pattern.getField() != null) {
+				fieldRanks[state] = Math.min(fieldRanks[state], p);
+			}
+		}
+	}
+
+	public CommandMatch match(CharSequence text) {
+		if (text == null) {
+			return CommandMatch.NONE;
+		}
+
+		int state = 0;
+		boolean command = false;
+		int typeRank = NO_RANK;
+		int fieldRank = NO_RANK;
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = Character.toLowerCase(text.charAt(i));
+			int symbol = c < alphabet.length ? alphabet[c] : 0;
+			state = transitions[state * alphabetSize + symbol];
+
+			command |= triggers[state];
+			typeRank = Math.min(typeRank, typeRanks[state]);
+			fieldRank = Math.min(fieldRank, fieldRanks[state]);
+		}
+
+		if (!command) {
+			return CommandMatch.NONE;
+		}
+		if (fieldRank == NO_RANK) {
+			return cachedMatch(typeRank);
+		}
+		return new CommandMatch(true, typeOf(typeRank), fields[fieldRank]);
+	}
+
+	public boolean isCommand(CharSequence text) {
+		return match(text).isCommand();
+	}
+
+	private CommandMatch cachedMatch(int typeRank) {
+		int index = typeRank == NO_RANK ? matches.length - 1 : typeRank;
+		CommandMatch match = matches[index];
+		if (match == null) {
+			match = new CommandMatch(true, typeOf(typeRank), null);
+			matches[index] = match;
+		}
+		return match;
+	}
+
+	private String typeOf(int typeRank) {
+		return typeRank == NO_RANK ? CommandVocabulary.UNKNOWN : types[typeRank];
+	}
+
+	private static String normalize(String phrase) {
+		return phrase.toLowerCase(Locale.ROOT);
+	}
+}
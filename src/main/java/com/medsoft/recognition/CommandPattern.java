@@ -0,0 +1,32 @@
+package com.medsoft.recognition;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandPattern {
+
+	private String phrase;
+	private String type;
+	private boolean trigger = true;
+	private String field;
+
+	static CommandPattern typed(String phrase, String type) {
+		return new CommandPattern(phrase, type, true, null);
+	}
+
+	static CommandPattern keyword(String phrase, String type) {
+		return new CommandPattern(phrase, type, false, null);
+	}
+
+	static CommandPattern field(String phrase, String field) {
+		return new CommandPattern(phrase, "FIELD_" + field.toUpperCase(), true, field);
+	}
+
+	static CommandPattern trigger(String phrase) {
+		return new CommandPattern(phrase, null, true, null);
+	}
+}
@@ -0,0 +1,103 @@
+package com.medsoft.recognition;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.medsoft.recognition.CommandPattern.*;
+
+/**
+ * Словарь голосовых команд в порядке приоритета. Тип команды определяется первой
+ * по порядку совпавшей фразой с типом, а признак команды — любой фразой с {@code trigger}.
+ * Дополнительные фразы из {@code voice.commands.extra} идут после встроенных.
+ * Из тех же фраз собирается грамматика отдельного распознавателя команд.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "voice.commands")
+public class CommandVocabulary {
+
+	public static final String UNKNOWN = "UNKNOWN";
+
+	private static final List<CommandPattern> DEFAULTS = List.of(
+			typed("поле", "FIELD_SWITCH"),
+			typed("следующее", "NEXT_FIELD"),
+			typed("предыдущее", "PREVIOUS_FIELD"),
+			typed("готово", "COMPLETE"),
+			typed("заверши", "COMPLETE"),
+			typed("создай pdf", "GENERATE_PDF"),
+			typed("создать pdf", "GENERATE_PDF"),
+			typed("отправь", "SEND_EMAIL"),
+			keyword("отправить", "SEND_EMAIL"),
+			typed("очисти", "CLEAR"),
+			typed("очистить", "CLEAR"),
+			field("пациент", "patientField"),
+			field("врач", "doctorField"),
+			field("диагноз", "diagnosisField"),
+			field("операция", "operationField"),
+			field("заполняющий", "fillerField"),
+			field("табельный", "personalNumberField"),
+			trigger("завершить"),
+			trigger("отмена"),
+			trigger("отправить отчет"),
+			trigger("поле диагноз"),
+			trigger("поле операция"),
+			trigger("поле пациент"),
+			trigger("поле врач"),
+			trigger("заполни"),
+			trigger("введи"),
+			trigger("удали"),
+			trigger("создай")
+	);
+
+	private List<CommandPattern> extra = new ArrayList<>();
+
+	/** Фраза из слов, которые могут быть в словаре русской модели. */
+	private static final Pattern GRAMMAR_PHRASE = Pattern.compile("[а-яё]+( [а-яё]+)*");
+
+	private boolean grammarEnabled = true;
+	private double grammarMinConfidence = 0.7;
+	/** Сколько звука с начала фразы слушает распознаватель команд, 0 — по длине самой длинной команды. */
+	private long grammarWindowMs = 0;
+
+	public List<CommandPattern> patterns() {
+		List<CommandPattern> patterns = new ArrayList<>(DEFAULTS);
+		patterns.addAll(extra);
+		return patterns;
+	}
+
+	/**
+	 * Грамматика Vosk в формате JSON: фразы словаря и {@code [unk]}, в который уходит
+	 * любая другая речь. Фразы с латиницей и цифрами («создай pdf») в грамматику не
+	 * входят: таких слов нет в словаре модели, их находит сопоставление текста диктовки.
+	 */
+	public String grammar() {
+		Set<String> phrases = new LinkedHashSet<>();
+		for (CommandPattern pattern : patterns()) {
+			String phrase = pattern.getPhrase().toLowerCase().trim().replaceAll("\\s+", " ");
+			if (GRAMMAR_PHRASE.matcher(phrase).matches()) {
+				phrases.add(phrase);
+			}
+		}
+
+		StringBuilder json = new StringBuilder("[");
+		for (String phrase : phrases) {
+			json.append('"').append(phrase.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",");
+		}
+		return json.append("\"[unk]\"]").toString();
+	}
+
+	public int maxPhraseWords() {
+		int max = 0;
+		for (CommandPattern pattern : patterns()) {
+			max = Math.max(max, pattern.getPhrase().trim().split("\\s+").length);
+		}
+		return max;
+	}
+}
@@ -0,0 +1,112 @@
+package com.medsoft.recognition;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Загруженная модель Vosk со своими свободными распознавателями
+ * (отдельно для свободной диктовки и для каждой грамматики).
+ * Одну ссылку держит пул, пока модель текущая, по одной — каждый выданный
+ * распознаватель. Нативная модель закрывается, когда отпущена последняя ссылка.
+ */
+@Slf4j
+final class ModelHandle {
+
+	private final org.vosk.Model model;
+	@Getter
+	private final String path;
+	@Getter
+	private final LocalDateTime loadedAt = LocalDateTime.now();
+
+	private static final String DICTATION = "";
+
+	private final Map<String, Deque<org.vosk.Recognizer>> idle = new ConcurrentHashMap<>();
+	private final AtomicInteger refs = new AtomicInteger(1);
+	private volatile boolean retired;
+
+	ModelHandle(String path) throws IOException {
+		this.path = path;
+		this.model = new org.vosk.Model(path);
+	}
+
+	/** Берёт ссылку, если модель ещё не закрыта. */
+	boolean retain() {
+		while (true) {
+			int count = refs.get();
+			if (count == 0) {
+				return false;
+			}
+			if (refs.compareAndSet(count, count + 1)) {
+				return true;
+			}
+		}
+	}
+
+	void release() {
+		if (refs.decrementAndGet() == 0) {
+			close();
+		}
+	}
+
+	/** Пул переключился на другую модель: отпускаем его ссылку. */
+	void retire() {
+		retired = true;
+		release();
+	}
+
+	/**
+	 * @param grammar грамматика JSON или {@code null} для свободной диктовки
+	 */
+	org.vosk.Recognizer take(String grammar) throws IOException {
+		org.vosk.Recognizer recognizer = idleFor(grammar).pollFirst();
+		return recognizer != null ? recognizer : newRecognizer(grammar);
+	}
+
+	void giveBack(org.vosk.Recognizer recognizer, String grammar) {
+		if (retired) {
+			recognizer.close();
+			return;
+		}
+		recognizer.reset();
+		idleFor(grammar).offerFirst(recognizer);
+	}
+
+	private Deque<org.vosk.Recognizer> idleFor(String grammar) {
+		return idle.computeIfAbsent(grammar != null ? grammar : DICTATION, key -> new ConcurrentLinkedDeque<>());
+	}
+
+	int references() {
+		return refs.get();
+	}
+
+	private org.vosk.Recognizer newRecognizer(String grammar) throws IOException {
+		if (grammar != null) {
+			org.vosk.Recognizer recognizer = new org.vosk.Recognizer(model, RecognizerPool.SAMPLE_RATE, grammar);
+			recognizer.setWords(true);
+			return recognizer;
+		}
+		org.vosk.Recognizer recognizer = new org.vosk.Recognizer(model, RecognizerPool.SAMPLE_RATE);
+		recognizer.setWords(true);
+		recognizer.setPartialWords(true);
+		return recognizer;
+	}
+
+	private void close() {
+		for (Deque<org.vosk.Recognizer> recognizers : idle.values()) {
+			org.vosk.Recognizer recognizer;
+			while ((recognizer = recognizers.pollFirst()) != null) {
+				recognizer.close();
+			}
+		}
+		model.close();
+		log.info("Модель Vosk {} выгружена", path);
+	}
+}
@@ -0,0 +1,8 @@
+package com.medsoft.recognition;
+
+public class RecognitionCapacityException extends RuntimeException {
+
+	public RecognitionCapacityException(String message) {
+		super(message);
+	}
+}
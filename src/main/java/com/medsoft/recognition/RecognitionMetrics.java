@@ -0,0 +1,171 @@
+package com.medsoft.recognition;
+
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики конвейера распознавания. Все счётчики и таймеры регистрируются
+ * один раз при старте, на горячем пути остаются только вызовы {@code record}
+ * и {@code increment}. Состояние открытых сессий публикуется сводными датчиками
+ * без тега сессии: идентификатор случаен, и каждая диктовка заводила бы в Prometheus
+ * новые ряды. Показатели отдельной сессии отдаёт {@code /api/voice/sessions/{id}/stats}.
+ */
+@Component
+public class RecognitionMetrics {
+
+	private final MeterRegistry registry;
+
+	private final Timer captureToFinal;
+	private final Timer acceptWaveform;
+	private final Timer commandAccept;
+	private final Timer getResult;
+	private final Timer postProcessing;
+	private final DistributionSummary sessionRealTimeFactor;
+	private final Counter droppedFrames;
+	private final Counter skippedAudio;
+
+	private final Set<RecognitionSession> openSessions = ConcurrentHashMap.newKeySet();
+
+	public RecognitionMetrics(MeterRegistry registry) {
+		this.registry = registry;
+
+		this.captureToFinal = Timer.builder("voice.recognition.capture_to_final")
+				.description("Время от захвата последнего кадра фразы до готового результата")
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(5))
+				.maximumExpectedValue(Duration.ofSeconds(30))
+				.register(registry);
+		this.acceptWaveform = Timer.builder("voice.decode.accept_waveform")
+				.description("Время вызова acceptWaveForm на один кадр")
+				.publishPercentileHistogram()
+				.register(registry);
+		this.commandAccept = Timer.builder("voice.decode.command_accept_waveform")
+				.description("Время acceptWaveForm распознавателя с грамматикой команд")
+				.publishPercentileHistogram()
+				.register(registry);
+		this.getResult = Timer.builder("voice.decode.get_result")
+				.description("Время получения результата из распознавателя")
+				.publishPercentileHistogram()
+				.register(registry);
+		this.postProcessing = Timer.builder("voice.recognition.post_processing")
+				.description("Поиск команд и нормализация числительных")
+				.publishPercentileHistogram()
+				.register(registry);
+		this.sessionRealTimeFactor = DistributionSummary.builder("voice.decode.session_rtf")
+				.description("Итоговый коэффициент реального времени закрытых сессий")
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(registry);
+		this.droppedFrames = Counter.builder("voice.audio.dropped_frames")
+				.description("Аудиокадры, отброшенные из-за переполнения буфера сессии")
+				.register(registry);
+		this.skippedAudio = Counter.builder("voice.vad.skipped_audio")
+				.description("Тишина, не переданная распознавателю детектором речи")
+				.baseUnit("seconds")
+				.register(registry);
+
+		Gauge.builder("voice.audio.buffered", openSessions, RecognitionMetrics::bufferedBytes)
+				.description("Звук в кольцевых буферах всех открытых сессий, ещё не поданный декодеру")
+				.baseUnit("bytes")
+				.register(registry);
+		Gauge.builder("voice.audio.max_lag", openSessions, RecognitionMetrics::maxLagSeconds)
+				.description("Наибольшее отставание декодера от звука среди открытых сессий")
+				.baseUnit("seconds")
+				.register(registry);
+		Gauge.builder("voice.audio.buffer.max_fill", openSessions, RecognitionMetrics::maxFillLevel)
+				.description("Наибольшая заполненность кольцевого буфера среди открытых сессий")
+				.register(registry);
+		Gauge.builder("voice.decode.max_rtf", openSessions, RecognitionMetrics::maxRealTimeFactor)
+				.description("Наибольший коэффициент реального времени среди открытых сессий")
+				.register(registry);
+	}
+
+	private static double bufferedBytes(Set<RecognitionSession> sessions) {
+		long bytes = 0;
+		for (RecognitionSession session : sessions) {
+			bytes += session.getAudio().available();
+		}
+		return bytes;
+	}
+
+	private static double maxLagSeconds(Set<RecognitionSession> sessions) {
+		int bytes = 0;
+		for (RecognitionSession session : sessions) {
+			bytes = Math.max(bytes, session.getAudio().available());
+		}
+		return bytes / (RecognizerPool.SAMPLE_RATE * 2.0);
+	}
+
+	private static double maxFillLevel(Set<RecognitionSession> sessions) {
+		double max = 0;
+		for (RecognitionSession session : sessions) {
+			max = Math.max(max, session.getAudio().fillLevel());
+		}
+		return max;
+	}
+
+	private static double maxRealTimeFactor(Set<RecognitionSession> sessions) {
+		double max = 0;
+		for (RecognitionSession session : sessions) {
+			max = Math.max(max, session.realTimeFactor());
+		}
+		return max;
+	}
+
+	public void bindSessions(Map<String, ?> sessions) {
+		Gauge.builder("voice.sessions.active", sessions, Map::size)
+				.description("Открытые сессии распознавания")
+				.register(registry);
+	}
+
+	public void bindPool(RecognizerPool pool) {
+		Gauge.builder("voice.pool.capacity", pool, RecognizerPool::capacity).register(registry);
+		Gauge.builder("voice.pool.available", pool, RecognizerPool::available).register(registry);
+	}
+
+	public void sessionOpened(RecognitionSession session) {
+		openSessions.add(session);
+	}
+
+	public void sessionClosed(RecognitionSession session) {
+		openSessions.remove(session);
+		if (session.getDecodedBytes() > 0) {
+			sessionRealTimeFactor.record(session.realTimeFactor());
+		}
+	}
+
+	public void recordCaptureToFinal(long nanos) {
+		captureToFinal.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordAcceptWaveform(long nanos) {
+		acceptWaveform.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordCommandAccept(long nanos) {
+		commandAccept.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordGetResult(long nanos) {
+		getResult.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordPostProcessing(long nanos) {
+		postProcessing.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void frameDropped() {
+		droppedFrames.increment();
+	}
+
+	public void audioSkipped(int bytes) {
+		if (bytes > 0) {
+			skippedAudio.increment(bytes / (RecognizerPool.SAMPLE_RATE * 2));
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.medsoft.recognition;
+
+import com.medsoft.models.RecognitionResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class RecognitionResultFactory {
+
+	private final CommandMatcher commandMatcher;
+	private final RussianNumberNormalizer numberNormalizer;
+
+	public RecognitionResult create(String sessionId, VoskResult result, long processingTimeMs) {
+		return create(sessionId, result, processingTimeMs,
+				result.isEmpty() ? CommandMatch.NONE : commandMatcher.match(result.getText()));
+	}
+
+	/** Создаёт результат с уже определённой командой (или {@link CommandMatch#NONE} для текста). */
+	public RecognitionResult create(String sessionId, VoskResult result, long processingTimeMs, CommandMatch command) {
+		if (result.isEmpty()) {
+			return RecognitionResult.builder()
+					.sessionId(sessionId)
+					.text("")
+					.recognizedCommand("")
+					.processingTimeMs(processingTimeMs)
+					.words(result.getWords())
+					.build();
+		}
+
+		return RecognitionResult.builder()
+				.sessionId(sessionId)
+				.text(numberNormalizer.normalize(result.getText()))
+				.isCommand(command.isCommand())
+				.recognizedCommand(command.getType())
+				.commandField(command.getField())
+				.confidence(result.averageConfidence())
+				.processingTimeMs(processingTimeMs)
+				.startTime(result.startTime())
+				.endTime(result.endTime())
+				.words(result.getWords())
+				.build();
+	}
+}
@@ -0,0 +1,187 @@
+package com.medsoft.recognition;
+
+import com.medsoft.audio.PcmRingBuffer;
+import com.medsoft.audio.PolyphaseResampler;
+import com.medsoft.audio.SegmentedAudioWriter;
+import com.medsoft.audio.StreamTimeMap;
+import com.medsoft.audio.VoiceActivityGate;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.sound.sampled.TargetDataLine;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Getter
+public class RecognitionSession {
+
+	private static final long BYTES_TO_NANOS = 1_000_000_000L / ((long) RecognizerPool.SAMPLE_RATE * 2);
+
+	private final String id;
+	private final org.vosk.Recognizer recognizer;
+	/** Распознаватель с грамматикой команд или {@code null}. */
+	@Setter
+	private volatile org.vosk.Recognizer commandRecognizer;
+	/** Интервалы (начало, конец в секундах) уже выполненных команд; только для потока декодирования. */
+	private final Deque<double[]> commandWindows = new ArrayDeque<>();
+	/** Сколько байт текущей фразы ещё получит распознаватель команд; только для потока декодирования. */
+	@Setter
+	private int commandBudget;
+	/** Речь, не поданная распознавателю команд: на столько его время отстаёт от основного. */
+	private long commandSkippedBytes;
+	private final LocalDateTime startedAt = LocalDateTime.now();
+	private final PcmRingBuffer audio;
+	/** Детектор речи или {@code null}, если он выключен. */
+	private final VoiceActivityGate voiceGate;
+	/** Архив исходного звука или {@code null}, если архив выключен. */
+	private final SegmentedAudioWriter archive;
+	/** Приведение формата клиента к 16 кГц моно или {@code null}, если клиент шлёт его сам. */
+	private final PolyphaseResampler resampler;
+	/** Перевод времени распознавателя во время исходного звука; только для потока декодирования. */
+	private final StreamTimeMap timeMap = new StreamTimeMap((int) RecognizerPool.SAMPLE_RATE);
+	private long sourceBytes;
+
+	@Setter
+	private volatile TargetDataLine microphone;
+	private volatile boolean active = true;
+
+	@Setter
+	private String lastPartial = "";
+	@Setter
+	private long lastPartialAt;
+
+	private volatile long lastCapturedAt;
+	private volatile long decodeNanos;
+	private volatile long decodedBytes;
+	private volatile long resampleNanos;
+
+	public RecognitionSession(String id, org.vosk.Recognizer recognizer, int bufferBytes,
+							  VoiceActivityGate voiceGate, SegmentedAudioWriter archive, PolyphaseResampler resampler) {
+		this.id = id;
+		this.recognizer = recognizer;
+		this.audio = new PcmRingBuffer(bufferBytes);
+		this.voiceGate = voiceGate;
+		this.archive = archive;
+		this.resampler = resampler;
+		if (voiceGate != null) {
+			voiceGate.setSpeechStartListener(timeMap::add);
+		}
+		this.lastCapturedAt = System.nanoTime();
+	}
+
+	public void skipCommandAudio(int bytes) {
+		commandSkippedBytes += bytes;
+	}
+
+	/** Сдвиг в секундах из времени распознавателя команд во время основного распознавателя. */
+	public double commandTimeShift() {
+		return commandSkippedBytes / (RecognizerPool.SAMPLE_RATE * 2.0);
+	}
+
+	/**
+	 * Принимает звук в формате клиента. Вызывается одним потоком-источником
+	 * (соединение WebSocket или захват микрофона). Кадр записывается в буфер
+	 * целиком или не записывается совсем.
+	 */
+	public boolean offer(byte[] data, int offset, int length) {
+		if (!active) {
+			return false;
+		}
+		if (resampler == null) {
+			if (!audio.write(data, offset, length)) {
+				return false;
+			}
+			lastCapturedAt = System.nanoTime();
+			return true;
+		}
+
+		// Проверяем место под весь результат до преобразования: иначе в буфер попадёт
+		// начало кадра без конца, а состояние фильтра уйдёт вперёд
+		int expected = resampler.maxOutputBytes(length);
+		if (expected > audio.free()) {
+			audio.drop(expected);
+			return false;
+		}
+		long start = System.nanoTime();
+		int end = offset + length;
+		for (int position = offset; position < end; position += resampler.maxInputBytes()) {
+			int converted = resampler.process(data, position, Math.min(resampler.maxInputBytes(), end - position));
+			audio.write(resampler.output(), 0, converted);
+		}
+		long now = System.nanoTime();
+		resampleNanos += now - start;
+		lastCapturedAt = now;
+		return true;
+	}
+
+	/**
+	 * Оценка момента захвата только что прочитанного кадра: всё, что ещё лежит
+	 * в буфере, пришло позже него, поэтому вычитаем длительность этого хвоста
+	 * из времени последней записи.
+	 */
+	public long capturedAtOfLastRead() {
+		return lastCapturedAt - audio.available() * BYTES_TO_NANOS;
+	}
+
+	/** Вызывается только потоком декодирования. */
+	public void addDecoded(int bytes, long nanos) {
+		decodedBytes += bytes;
+		decodeNanos += nanos;
+	}
+
+	/**
+	 * Учитывает прочитанный из буфера кадр. Вызывается только потоком декодирования.
+	 *
+	 * @return смещение кадра в исходном звуке сессии
+	 */
+	public long advanceSource(int bytes) {
+		long offset = sourceBytes;
+		sourceBytes += bytes;
+		return offset;
+	}
+
+	public double realTimeFactor() {
+		long bytes = decodedBytes;
+		return bytes == 0 ? 0.0 : (double) decodeNanos / (bytes * BYTES_TO_NANOS);
+	}
+
+	public int read(byte[] frame, long timeoutMs) {
+		return audio.read(frame, 0, frame.length, timeoutMs, TimeUnit.MILLISECONDS);
+	}
+
+	public void close() {
+		active = false;
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("sessionId", id);
+		stats.put("startedAt", startedAt);
+		stats.put("active", active);
+		stats.put("bufferCapacityBytes", audio.capacity());
+		stats.put("bufferedBytes", audio.available());
+		stats.put("bufferFillLevel", audio.fillLevel());
+		stats.put("overruns", audio.overruns());
+		stats.put("droppedBytes", audio.droppedBytes());
+		stats.put("receivedBytes", audio.totalWritten());
+		stats.put("decodedBytes", decodedBytes);
+		stats.put("realTimeFactor", realTimeFactor());
+		stats.put("archived", archive != null);
+		if (resampler != null) {
+			stats.put("inputFormat", resampler.format().toString());
+			stats.put("resampleMs", resampleNanos / 1_000_000);
+			stats.put("resampleToDecodeRatio", decodeNanos == 0 ? 0.0 : (double) resampleNanos / decodeNanos);
+		}
+		if (voiceGate != null) {
+			stats.put("vadSpeechSegments", voiceGate.speechSegments());
+			stats.put("vadSkippedBytes", voiceGate.skippedBytes());
+			stats.put("vadSkippedMs", voiceGate.skippedBytes() * BYTES_TO_NANOS / 1_000_000);
+			stats.put("vadSavedDecodeMs", (long) (voiceGate.skippedBytes() * BYTES_TO_NANOS * realTimeFactor() / 1_000_000));
+		}
+		return stats;
+	}
+}
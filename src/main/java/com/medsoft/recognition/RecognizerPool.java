@@ -0,0 +1,278 @@
+package com.medsoft.recognition;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул распознавателей Vosk поверх текущей модели.
+ * Число одновременных сессий ограничено, каждая сессия получает
+ * собственный распознаватель и собственный поток декодирования.
+ * Модель загружается в фоне; пока её нет, сессии ждут не дольше
+ * {@code vosk.pool.acquire-timeout-ms}. Модель можно заменить на лету:
+ * открытые сессии дорабатывают на старой, новые получают новую.
+ */
+@Component
+@Slf4j
+public class RecognizerPool {
+
+	public static final float SAMPLE_RATE = 16000.0f;
+
+	public enum ModelState { LOADING, READY, FAILED }
+
+	@Value("${vosk.model.path}")
+	private String modelPath;
+
+	@Value("${vosk.model.load-on-startup:true}")
+	private boolean loadOnStartup;
+
+	@Value("${vosk.pool.max-sessions:0}")
+	private int maxSessions;
+
+	@Value("${vosk.pool.acquire-timeout-ms:5000}")
+	private long acquireTimeoutMs;
+
+	private volatile ModelHandle current;
+	private volatile ModelState state = ModelState.LOADING;
+	private volatile String loadingPath;
+	private volatile String lastError;
+	private final Object modelMonitor = new Object();
+
+	private int capacity;
+	private Semaphore permits;
+	private ExecutorService decodeExecutor;
+	private ExecutorService modelLoader;
+	private final Map<org.vosk.Recognizer, Lease> leases = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		capacity = maxSessions > 0 ? maxSessions : Runtime.getRuntime().availableProcessors();
+		permits = new Semaphore(capacity, true);
+		decodeExecutor = Executors.newFixedThreadPool(capacity, namedThreads("vosk-decode-"));
+		modelLoader = Executors.newSingleThreadExecutor(namedThreads("vosk-model-loader-"));
+
+		log.info("Пул распознавателей инициализирован, сессий: {}", capacity);
+		if (loadOnStartup) {
+			loadModel(modelPath);
+		}
+	}
+
+	/**
+	 * Загружает модель в фоне и делает её текущей. Загрузки выполняются
+	 * по очереди; до завершения пул продолжает работать на прежней модели.
+	 */
+	public CompletableFuture<Void> loadModel(String path) {
+		return CompletableFuture.runAsync(() -> {
+			loadingPath = path;
+			long start = System.currentTimeMillis();
+			try {
+				log.info("Загрузка модели Vosk из: {}", path);
+				ModelHandle loaded = new ModelHandle(path);
+
+				ModelHandle previous;
+				synchronized (modelMonitor) {
+					previous = current;
+					current = loaded;
+					state = ModelState.READY;
+					lastError = null;
+					modelMonitor.notifyAll();
+				}
+				log.info("Модель Vosk {} загружена за {} мс", path, System.currentTimeMillis() - start);
+
+				if (previous != null) {
+					previous.retire();
+					log.info("Модель {} выводится из работы, открытых распознавателей: {}",
+							previous.getPath(), previous.references());
+				}
+			} catch (Exception e) {
+				log.error("Ошибка загрузки модели Vosk {}: {}", path, e.getMessage(), e);
+				synchronized (modelMonitor) {
+					lastError = e.getMessage();
+					if (current == null) {
+						state = ModelState.FAILED;
+					}
+					modelMonitor.notifyAll();
+				}
+				throw new CompletionException(e);
+			} finally {
+				loadingPath = null;
+			}
+		}, modelLoader);
+	}
+
+	/**
+	 * Занимает слот пула. Если свободных слотов нет или модель ещё загружается,
+	 * ждёт не дольше {@code vosk.pool.acquire-timeout-ms}, затем отклоняет сессию.
+	 */
+	public org.vosk.Recognizer acquire() {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+		awaitModel(deadline);
+
+		try {
+			if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+				throw new RecognitionCapacityException(
+						"Все распознаватели заняты (" + capacity + " сессий)");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RecognitionCapacityException("Ожидание распознавателя прервано");
+		}
+
+		try {
+			return lease(true, null);
+		} catch (Exception e) {
+			permits.release();
+			throw new RuntimeException("Не удалось создать распознаватель", e);
+		}
+	}
+
+	/**
+	 * Выдаёт распознаватель текущей модели вне лимита живых сессий,
+	 * например для пакетной расшифровки. Возвращается через {@link #release}.
+	 */
+	public org.vosk.Recognizer borrow() throws IOException {
+		return borrow(null);
+	}
+
+	/**
+	 * То же для распознавателя, ограниченного грамматикой JSON. Такие распознаватели
+	 * работают рядом с основным внутри уже занятого слота сессии.
+	 */
+	public org.vosk.Recognizer borrow(String grammar) throws IOException {
+		awaitModel(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs));
+		return lease(false, grammar);
+	}
+
+	public void release(org.vosk.Recognizer recognizer) {
+		Lease lease = leases.remove(recognizer);
+		if (lease == null) {
+			log.warn("Возвращён распознаватель, не выданный пулом");
+			recognizer.close();
+			return;
+		}
+
+		try {
+			lease.model.giveBack(recognizer, lease.grammar);
+		} finally {
+			lease.model.release();
+			if (lease.permit) {
+				permits.release();
+			}
+		}
+	}
+
+	private org.vosk.Recognizer lease(boolean permit, String grammar) throws IOException {
+		ModelHandle model = current;
+		while (!model.retain()) {
+			model = current;
+		}
+
+		try {
+			org.vosk.Recognizer recognizer = model.take(grammar);
+			leases.put(recognizer, new Lease(model, permit, grammar));
+			return recognizer;
+		} catch (IOException | RuntimeException e) {
+			model.release();
+			throw e;
+		}
+	}
+
+	private void awaitModel(long deadline) {
+		synchronized (modelMonitor) {
+			while (current == null) {
+				if (state == ModelState.FAILED) {
+					throw new RecognitionCapacityException("Модель распознавания не загружена: " + lastError);
+				}
+				long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0) {
+					throw new RecognitionCapacityException("Модель распознавания ещё загружается");
+				}
+				try {
+					modelMonitor.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RecognitionCapacityException("Ожидание модели прервано");
+				}
+			}
+		}
+	}
+
+	public ExecutorService decodeExecutor() {
+		return decodeExecutor;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public int available() {
+		return permits.availablePermits();
+	}
+
+	public ModelState state() {
+		return state;
+	}
+
+	public Map<String, Object> modelInfo() {
+		ModelHandle model = current;
+		Map<String, Object> info = new LinkedHashMap<>();
+		info.put("state", state);
+		info.put("modelPath", model != null ? model.getPath() : null);
+		info.put("loadedAt", model != null ? model.getLoadedAt() : null);
+		info.put("loading", loadingPath);
+		info.put("lastError", lastError);
+		info.put("capacity", capacity);
+		info.put("available", available());
+		return info;
+	}
+
+	static ThreadFactory namedThreads(String prefix) {
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	@PreDestroy
+	public void cleanup() {
+		modelLoader.shutdownNow();
+		decodeExecutor.shutdown();
+		try {
+			if (!decodeExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+				decodeExecutor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			decodeExecutor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+
+		ModelHandle model = current;
+		current = null;
+		if (model != null) {
+			model.retire();
+		}
+	}
+
+	private static final class Lease {
+		private final ModelHandle model;
+		private final boolean permit;
+		private final String grammar;
+
+		private Lease(ModelHandle model, boolean permit, String grammar) {
+			this.model = model;
+			this.permit = permit;
+			this.grammar = grammar;
+		}
+	}
+}
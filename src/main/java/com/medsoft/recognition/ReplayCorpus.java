@@ -0,0 +1,114 @@
+package com.medsoft.recognition;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.models.RecognizedWord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сценарий диктовки для воспроизводящего бэкенда. Понимает два вида строк:
+ * <ul>
+ *     <li>обычный текст фразы — время слов рассчитывается по длине слова;</li>
+ *     <li>JSON результата, например строка ответа {@code /transcribe}, — берутся
+ *     настоящие времена слов и паузы между фразами.</li>
+ * </ul>
+ * Время слов каждой фразы отсчитывается от её начала.
+ */
+public class ReplayCorpus {
+
+	public record Utterance(VoskResult result, double pauseBefore) {
+		public double duration() {
+			return result.endTime();
+		}
+	}
+
+	private static final double TEXT_PAUSE_SECONDS = 1.2;
+
+	private final List<Utterance> utterances;
+
+	private ReplayCorpus(List<Utterance> utterances) {
+		if (utterances.isEmpty()) {
+			throw new IllegalArgumentException("Сценарий диктовки пуст");
+		}
+		this.utterances = List.copyOf(utterances);
+	}
+
+	public static ReplayCorpus load(InputStream in, ObjectMapper mapper) throws IOException {
+		List<Utterance> utterances = new ArrayList<>();
+		double previousEnd = Double.NaN;
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.strip();
+				if (line.isEmpty()) {
+					continue;
+				}
+				if (!line.startsWith("{")) {
+					utterances.add(new Utterance(synthesize(line), TEXT_PAUSE_SECONDS));
+					continue;
+				}
+
+				List<RecognizedWord> words = recordedWords(mapper.readTree(line));
+				if (words.isEmpty()) {
+					continue;
+				}
+				double start = words.get(0).getStart();
+				double pause = Double.isNaN(previousEnd) ? TEXT_PAUSE_SECONDS : Math.max(0, start - previousEnd);
+				previousEnd = words.get(words.size() - 1).getEnd();
+
+				VoskResult recorded = new VoskResult(joinWords(words), words).shifted(-start);
+				utterances.add(new Utterance(recorded, pause));
+			}
+		}
+		return new ReplayCorpus(utterances);
+	}
+
+	private static VoskResult synthesize(String text) {
+		String[] tokens = text.split("\\s+");
+		List<RecognizedWord> words = new ArrayList<>(tokens.length);
+		double time = 0;
+		for (int i = 0; i < tokens.length; i++) {
+			double end = time + 0.12 + tokens[i].length() * 0.045;
+			words.add(new RecognizedWord(tokens[i], time, end, 0.72 + (i % 5) * 0.06));
+			time = end + 0.08;
+		}
+		return new VoskResult(String.join(" ", tokens), words);
+	}
+
+	private static List<RecognizedWord> recordedWords(JsonNode node) {
+		JsonNode items = node.has("words") ? node.get("words") : node.path("result");
+		List<RecognizedWord> words = new ArrayList<>();
+		for (JsonNode item : items) {
+			words.add(new RecognizedWord(item.path("word").asText(), item.path("start").asDouble(),
+					item.path("end").asDouble(), item.path("conf").asDouble(1.0)));
+		}
+		return words;
+	}
+
+	private static String joinWords(List<RecognizedWord> words) {
+		StringBuilder text = new StringBuilder();
+		for (RecognizedWord word : words) {
+			if (!text.isEmpty()) {
+				text.append(' ');
+			}
+			text.append(word.getWord());
+		}
+		return text.toString();
+	}
+
+	public int size() {
+		return utterances.size();
+	}
+
+	public Utterance get(int index) {
+		return utterances.get(index % utterances.size());
+	}
+}
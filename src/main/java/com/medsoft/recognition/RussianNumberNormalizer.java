@@ -0,0 +1,207 @@
+package com.medsoft.recognition;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Заменяет числительные в распознанном тексте цифрами за один проход.
+ * Слова сравниваются целиком, составные числительные ("двадцать три",
+ * "сто пятнадцать", "две тысячи сорок") собираются в одно число.
+ * Если числительных нет, возвращается исходная строка без копирования.
+ */
+@Component
+public class RussianNumberNormalizer {
+
+	private static final int LETTERS = 33;
+	private static final int NONE = -1;
+
+	private static final int UNIT = 1;
+	private static final int TEEN = 2;
+	private static final int TEN = 3;
+	private static final int HUNDRED = 4;
+	private static final int THOUSAND = 5;
+	private static final int ZERO = 6;
+	private static final int START = 7;
+
+	private int[] children = new int[LETTERS * 64];
+	private int[] values = new int[64];
+	private int[] kinds = new int[64];
+	private int nodes = 1;
+
+	public RussianNumberNormalizer() {
+		Arrays.fill(children, NONE);
+		Arrays.fill(values, NONE);
+
+		add(ZERO, 0, "ноль", "нуль");
+		add(UNIT, 1, "один", "одна", "одно");
+		add(UNIT, 2, "два", "две");
+		add(UNIT, 3, "три");
+		add(UNIT, 4, "четыре");
+		add(UNIT, 5, "пять");
+		add(UNIT, 6, "шесть");
+		add(UNIT, 7, "семь");
+		add(UNIT, 8, "восемь");
+		add(UNIT, 9, "девять");
+		add(TEEN, 10, "десять");
+		add(TEEN, 11, "одиннадцать");
+		add(TEEN, 12, "двенадцать");
+		add(TEEN, 13, "тринадцать");
+		add(TEEN, 14, "четырнадцать");
+		add(TEEN, 15, "пятнадцать");
+		add(TEEN, 16, "шестнадцать");
+		add(TEEN, 17, "семнадцать");
+		add(TEEN, 18, "восемнадцать");
+		add(TEEN, 19, "девятнадцать");
+		add(TEN, 20, "двадцать");
+		add(TEN, 30, "тридцать");
+		add(TEN, 40, "сорок");
+		add(TEN, 50, "пятьдесят");
+		add(TEN, 60, "шестьдесят");
+		add(TEN, 70, "семьдесят");
+		add(TEN, 80, "восемьдесят");
+		add(TEN, 90, "девяносто");
+		add(HUNDRED, 100, "сто");
+		add(HUNDRED, 200, "двести");
+		add(HUNDRED, 300, "триста");
+		add(HUNDRED, 400, "четыреста");
+		add(HUNDRED, 500, "пятьсот");
+		add(HUNDRED, 600, "шестьсот");
+		add(HUNDRED, 700, "семьсот");
+		add(HUNDRED, 800, "восемьсот");
+		add(HUNDRED, 900, "девятьсот");
+		add(THOUSAND, 1000, "тысяча", "тысячи", "тысяч");
+	}
+
+	public String normalize(String text) {
+		if (text == null || text.isEmpty()) {
+			return text;
+		}
+
+		StringBuilder out = null;
+		int copied = 0;
+		int length = text.length();
+		int i = 0;
+
+		while (i < length) {
+			if (!Character.isLetter(text.charAt(i))) {
+				i++;
+				continue;
+			}
+
+			int start = i;
+			int end = wordEnd(text, start);
+			int node = lookup(text, start, end);
+			if (node == NONE) {
+				i = end;
+				continue;
+			}
+
+			long total = 0;
+			long group = 0;
+			int lastKind = START;
+			int numberEnd = end;
+
+			while (true) {
+				int kind = kinds[node];
+				int value = values[node];
+
+				if (kind == ZERO) {
+					if (numberEnd != end) {
+						break;
+					}
+					lastKind = 0;
+				} else if (kind == THOUSAND) {
+					if (lastKind == THOUSAND || total > 0) {
+						break;
+					}
+					total = (group == 0 ? 1 : group) * 1000;
+					group = 0;
+					lastKind = THOUSAND;
+				} else if (kind < lastKind && lastKind != TEEN && (lastKind != TEN || kind == UNIT)) {
+					group += value;
+					lastKind = kind;
+				} else {
+					break;
+				}
+				numberEnd = end;
+
+				if (lastKind == 0 || end >= length || text.charAt(end) != ' ') {
+					break;
+				}
+				int nextStart = end + 1;
+				int nextEnd = wordEnd(text, nextStart);
+				int nextNode = nextEnd > nextStart ? lookup(text, nextStart, nextEnd) : NONE;
+				if (nextNode == NONE) {
+					break;
+				}
+				node = nextNode;
+				end = nextEnd;
+			}
+
+			if (out == null) {
+				out = new StringBuilder(length);
+			}
+			out.append(text, copied, start).append(total + group);
+			copied = numberEnd;
+			i = numberEnd;
+		}
+
+		if (out == null) {
+			return text;
+		}
+		return out.append(text, copied, length).toString();
+	}
+
+	private static int wordEnd(String text, int start) {
+		int end = start;
+		while (end < text.length() && Character.isLetter(text.charAt(end))) {
+			end++;
+		}
+		return end;
+	}
+
+	private int lookup(String text, int start, int end) {
+		int node = 0;
+		for (int i = start; i < end && node != NONE; i++) {
+			int letter = letterIndex(Character.toLowerCase(text.charAt(i)));
+			node = letter == NONE ? NONE : children[node * LETTERS + letter];
+		}
+		return node != NONE && values[node] != NONE ? node : NONE;
+	}
+
+	private static int letterIndex(char c) {
+		if (c >= 'а' && c <= 'я') {
+			return c - 'а';
+		}
+		return c == 'ё' ? LETTERS - 1 : NONE;
+	}
+
+	private void add(int kind, int value, String... words) {
+		for (String word : words) {
+			int node = 0;
+			for (char c : word.toCharArray()) {
+				int slot = node * LETTERS + letterIndex(c);
+				if (children[slot] == NONE) {
+					int child = allocateNode();
+					children[slot] = child;
+				}
+				node = children[slot];
+			}
+			values[node] = value;
+			kinds[node] = kind;
+		}
+	}
+
+	private int allocateNode() {
+		if (nodes == values.length) {
+			int size = values.length * 2;
+			children = Arrays.copyOf(children, size * LETTERS);
+			Arrays.fill(children, values.length * LETTERS, children.length, NONE);
+			values = Arrays.copyOf(values, size);
+			Arrays.fill(values, nodes, size, NONE);
+			kinds = Arrays.copyOf(kinds, size);
+		}
+		return nodes++;
+	}
+}
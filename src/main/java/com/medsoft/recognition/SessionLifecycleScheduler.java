@@ -0,0 +1,248 @@
+package com.medsoft.recognition;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Сроки жизни сессий диктовки: общий дедлайн и таймаут простоя без аудио.
+ * Все таймеры обслуживает один поток на колесе таймеров ({@code voice.session.wheel-size}
+ * ячеек по {@code voice.session.tick-ms}), поэтому постановка и отмена стоят O(1)
+ * при любом числе сессий. Простой не переставляет таймер на каждый кадр: при
+ * срабатывании проверяется время последнего звука, и если сессия жива, таймер
+ * ставится заново. Каждая постановка получает своё поколение, так что отменённый
+ * или заменённый таймер не остановит сессию.
+ * <p>
+ * Об истечении срока узнают все подписчики: сервис распознавания останавливает
+ * сессию, обработчик аудиопотока закрывает сокет клиента.
+ */
+@Component
+@Slf4j
+public class SessionLifecycleScheduler {
+
+	public enum Reason { DEADLINE, IDLE }
+
+	@Value("${voice.session.tick-ms:100}")
+	private long tickMs;
+
+	@Value("${voice.session.wheel-size:512}")
+	private int wheelSize;
+
+	private final Map<String, Timeout> timeouts = new ConcurrentHashMap<>();
+	private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicLong generations = new AtomicLong();
+
+	private final List<BiConsumer<String, Reason>> expiryListeners = new CopyOnWriteArrayList<>();
+
+	private ArrayDeque<Timeout>[] wheel;
+	private long tickNanos;
+	private long startNanos;
+	private long tick;
+	private Thread worker;
+	private volatile boolean running = true;
+
+	@PostConstruct
+	@SuppressWarnings("unchecked")
+	public void init() {
+		int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+		wheel = new ArrayDeque[size];
+		for (int i = 0; i < size; i++) {
+			wheel[i] = new ArrayDeque<>();
+		}
+		tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+		startNanos = System.nanoTime();
+
+		worker = new Thread(this::run, "session-timer");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	public void addExpiryListener(BiConsumer<String, Reason> listener) {
+		expiryListeners.add(listener);
+	}
+
+	/**
+	 * Ставит (или заменяет) таймеры сессии.
+	 *
+	 * @param maxDurationMs  общий срок сессии, 0 — без ограничения
+	 * @param idleTimeoutMs  сколько можно жить без звука, 0 — без ограничения
+	 * @param lastActivity   {@link System#nanoTime()} последнего принятого звука
+	 */
+	public void track(String sessionId, long maxDurationMs, long idleTimeoutMs, LongSupplier lastActivity) {
+		long now = System.nanoTime();
+		Timeout timeout = new Timeout(sessionId, generations.incrementAndGet(), now,
+				maxDurationMs > 0 ? now + TimeUnit.MILLISECONDS.toNanos(maxDurationMs) : Long.MAX_VALUE,
+				TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs), lastActivity);
+
+		Timeout previous = timeouts.put(sessionId, timeout);
+		if (previous != null) {
+			previous.cancelled = true;
+		}
+		if (maxDurationMs > 0 || idleTimeoutMs > 0) {
+			pending.add(timeout);
+		}
+	}
+
+	public boolean cancel(String sessionId) {
+		Timeout timeout = timeouts.remove(sessionId);
+		if (timeout == null) {
+			return false;
+		}
+		timeout.cancelled = true;
+		return true;
+	}
+
+	public int size() {
+		return timeouts.size();
+	}
+
+	public List<Map<String, Object>> snapshot() {
+		long now = System.nanoTime();
+		LocalDateTime wallNow = LocalDateTime.now();
+		List<Map<String, Object>> sessions = new ArrayList<>(timeouts.size());
+
+		for (Timeout timeout : timeouts.values()) {
+			long due = timeout.dueAt();
+			Map<String, Object> info = new LinkedHashMap<>();
+			info.put("sessionId", timeout.sessionId);
+			info.put("generation", timeout.generation);
+			info.put("startedAt", wallNow.minusNanos(now - timeout.startedAt));
+			info.put("deadlineAt", timeout.deadline == Long.MAX_VALUE
+					? null : wallNow.plusNanos(timeout.deadline - now));
+			info.put("idleTimeoutMs", TimeUnit.NANOSECONDS.toMillis(timeout.idleNanos));
+			info.put("idleMs", TimeUnit.NANOSECONDS.toMillis(now - timeout.lastActivity.getAsLong()));
+			info.put("expiresInMs", due == Long.MAX_VALUE ? null : Math.max(0, TimeUnit.NANOSECONDS.toMillis(due - now)));
+			sessions.add(info);
+		}
+		sessions.sort(Comparator.comparing(info -> (String) info.get("sessionId")));
+		return sessions;
+	}
+
+	private void run() {
+		while (running) {
+			long deadline = startNanos + (tick + 1) * tickNanos;
+			long sleep;
+			while ((sleep = deadline - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(this, sleep);
+				if (!running) {
+					return;
+				}
+			}
+
+			Timeout added;
+			while ((added = pending.poll()) != null) {
+				if (!added.cancelled) {
+					schedule(added, tick);
+				}
+			}
+
+			expireSlot(wheel[(int) (tick & (wheel.length - 1))]);
+			tick++;
+		}
+	}
+
+	/**
+	 * Кладёт таймер в ячейку его срока.
+	 *
+	 * @param firstTick ближайший тик, ячейка которого ещё будет обработана: текущий
+	 *                  для новых таймеров и следующий при перепостановке из {@link #expireSlot},
+	 *                  иначе таймер со сроком ровно через оборот опоздал бы ещё на оборот
+	 */
+	private void schedule(Timeout timeout, long firstTick) {
+		long due = timeout.dueAt();
+		long dueTick = Math.max(firstTick, (due - startNanos + tickNanos - 1) / tickNanos);
+		timeout.rounds = (dueTick - firstTick) / wheel.length;
+		wheel[(int) (dueTick & (wheel.length - 1))].add(timeout);
+	}
+
+	private void expireSlot(ArrayDeque<Timeout> slot) {
+		for (int i = slot.size(); i > 0; i--) {
+			Timeout timeout = slot.poll();
+			if (timeout.cancelled) {
+				continue;
+			}
+			if (timeout.rounds > 0) {
+				timeout.rounds--;
+				slot.add(timeout);
+				continue;
+			}
+
+			long now = System.nanoTime();
+			Reason reason = now >= timeout.deadline ? Reason.DEADLINE
+					: timeout.idleNanos > 0 && now - timeout.lastActivity.getAsLong() >= timeout.idleNanos ? Reason.IDLE
+					: null;
+
+			if (reason == null) {
+				schedule(timeout, tick + 1);
+			} else {
+				expire(timeout, reason);
+			}
+		}
+	}
+
+	private void expire(Timeout timeout, Reason reason) {
+		if (!timeouts.remove(timeout.sessionId, timeout)) {
+			return;
+		}
+		log.info("Сессия {} остановлена по таймеру ({}), поколение {}",
+				timeout.sessionId, reason, timeout.generation);
+		for (BiConsumer<String, Reason> listener : expiryListeners) {
+			try {
+				listener.accept(timeout.sessionId, reason);
+			} catch (Exception e) {
+				log.error("Ошибка остановки сессии {} по таймеру: {}", timeout.sessionId, e.getMessage(), e);
+			}
+		}
+	}
+
+	@PreDestroy
+	public void cleanup() throws InterruptedException {
+		running = false;
+		LockSupport.unpark(worker);
+		worker.join(Duration.ofSeconds(1).toMillis());
+	}
+
+	private static final class Timeout {
+		private final String sessionId;
+		private final long generation;
+		private final long startedAt;
+		private final long deadline;
+		private final long idleNanos;
+		private final LongSupplier lastActivity;
+
+		private volatile boolean cancelled;
+		private long rounds;
+
+		private Timeout(String sessionId, long generation, long startedAt, long deadline,
+						long idleNanos, LongSupplier lastActivity) {
+			this.sessionId = sessionId;
+			this.generation = generation;
+			this.startedAt = startedAt;
+			this.deadline = deadline;
+			this.idleNanos = idleNanos;
+			this.lastActivity = lastActivity;
+		}
+
+		private long dueAt() {
+			if (idleNanos == 0) {
+				return deadline;
+			}
+			long idleAt = lastActivity.getAsLong() + idleNanos;
+			return Math.min(deadline, idleAt);
+		}
+	}
+}
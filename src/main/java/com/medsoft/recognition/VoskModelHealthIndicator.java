@@ -0,0 +1,34 @@
+package com.medsoft.recognition;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Готовность модели распознавания. Входит в группу readiness,
+ * поэтому экземпляр не получает трафик, пока модель загружается.
+ */
+@Component("voskModel")
+@ConditionalOnProperty(name = "vosk.model.load-on-startup", matchIfMissing = true)
+@RequiredArgsConstructor
+public class VoskModelHealthIndicator implements HealthIndicator {
+
+	private final RecognizerPool recognizerPool;
+
+	@Override
+	public Health health() {
+		Health.Builder builder = switch (recognizerPool.state()) {
+			case READY -> Health.up();
+			case LOADING -> Health.outOfService();
+			case FAILED -> Health.down();
+		};
+		recognizerPool.modelInfo().forEach((key, value) -> {
+			if (value != null) {
+				builder.withDetail(key, value);
+			}
+		});
+		return builder.build();
+	}
+}
@@ -0,0 +1,64 @@
+package com.medsoft.recognition;
+
+import com.sun.jna.Native;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Прямой доступ к JSON-результатам libvosk в виде байтов UTF-8.
+ * Обёртка org.vosk возвращает String, декодированный кодировкой JNA по умолчанию,
+ * из-за чего на Windows кириллица приходила в виде кракозябр.
+ */
+@Slf4j
+final class VoskNative {
+
+	private static final boolean AVAILABLE = register();
+
+	private VoskNative() {
+	}
+
+	private static native Pointer vosk_recognizer_result(Pointer recognizer);
+
+	private static native Pointer vosk_recognizer_partial_result(Pointer recognizer);
+
+	private static native Pointer vosk_recognizer_final_result(Pointer recognizer);
+
+	static byte[] result(org.vosk.Recognizer recognizer) {
+		return AVAILABLE
+				? read(vosk_recognizer_result(recognizer.getPointer()))
+				: recognizer.getResult().getBytes(StandardCharsets.UTF_8);
+	}
+
+	static byte[] partialResult(org.vosk.Recognizer recognizer) {
+		return AVAILABLE
+				? read(vosk_recognizer_partial_result(recognizer.getPointer()))
+				: recognizer.getPartialResult().getBytes(StandardCharsets.UTF_8);
+	}
+
+	static byte[] finalResult(org.vosk.Recognizer recognizer) {
+		return AVAILABLE
+				? read(vosk_recognizer_final_result(recognizer.getPointer()))
+				: recognizer.getFinalResult().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] read(Pointer json) {
+		if (json == null) {
+			return new byte[0];
+		}
+		return json.getByteArray(0, (int) json.indexOf(0, (byte) 0));
+	}
+
+	private static boolean register() {
+		try {
+			Class.forName("org.vosk.LibVosk");
+			Native.register(VoskNative.class, Platform.isWindows() ? "libvosk" : "vosk");
+			return true;
+		} catch (Throwable e) {
+			log.warn("Прямой доступ к libvosk недоступен, используется обёртка org.vosk: {}", e.getMessage());
+			return false;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.medsoft.recognition;
+
+import com.medsoft.models.RecognizedWord;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class VoskResult {
+
+	public static final VoskResult EMPTY = new VoskResult("", List.of());
+
+	private final String text;
+	private final List<RecognizedWord> words;
+
+	public boolean isEmpty() {
+		return text.isEmpty();
+	}
+
+	public double averageConfidence() {
+		if (words.isEmpty()) {
+			return 0.0;
+		}
+		double sum = 0;
+		for (RecognizedWord word : words) {
+			sum += word.getConf();
+		}
+		return sum / words.size();
+	}
+
+	public VoskResult shifted(double seconds) {
+		if (seconds == 0 || words.isEmpty()) {
+			return this;
+		}
+		List<RecognizedWord> shiftedWords = new ArrayList<>(words.size());
+		for (RecognizedWord word : words) {
+			shiftedWords.add(new RecognizedWord(word.getWord(),
+					word.getStart() + seconds, word.getEnd() + seconds, word.getConf()));
+		}
+		return new VoskResult(text, shiftedWords);
+	}
+
+	public double startTime() {
+		return words.isEmpty() ? 0.0 : words.get(0).getStart();
+	}
+
+	public double endTime() {
+		return words.isEmpty() ? 0.0 : words.get(words.size() - 1).getEnd();
+	}
+}
@@ -0,0 +1,97 @@
+package com.medsoft.recognition;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.medsoft.models.RecognizedWord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый разбор JSON-результатов Vosk без построения дерева.
+ * За один проход читает текст ({@code text} или {@code partial}) и слова
+ * с таймкодами и уверенностью ({@code result} или {@code partial_result}).
+ */
+@Component
+@Slf4j
+public class VoskResultDecoder {
+
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	public VoskResult result(org.vosk.Recognizer recognizer) {
+		return decode(VoskNative.result(recognizer));
+	}
+
+	public VoskResult partialResult(org.vosk.Recognizer recognizer) {
+		return decode(VoskNative.partialResult(recognizer));
+	}
+
+	public VoskResult finalResult(org.vosk.Recognizer recognizer) {
+		return decode(VoskNative.finalResult(recognizer));
+	}
+
+	public VoskResult decode(byte[] json) {
+		if (json == null || json.length == 0) {
+			return VoskResult.EMPTY;
+		}
+
+		try (JsonParser parser = jsonFactory.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return VoskResult.EMPTY;
+			}
+
+			String text = "";
+			List<RecognizedWord> words = List.of();
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				parser.nextToken();
+
+				switch (field) {
+					case "text", "partial" -> text = parser.getText().trim();
+					case "result", "partial_result" -> words = readWords(parser);
+					default -> parser.skipChildren();
+				}
+			}
+
+			return text.isEmpty() ? VoskResult.EMPTY : new VoskResult(text, words);
+
+		} catch (IOException e) {
+			log.error("Ошибка разбора результата Vosk: {} | JSON: {}",
+					e.getMessage(), new String(json, StandardCharsets.UTF_8));
+			return VoskResult.EMPTY;
+		}
+	}
+
+	private static List<RecognizedWord> readWords(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return List.of();
+		}
+
+		List<RecognizedWord> words = new ArrayList<>();
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			RecognizedWord word = new RecognizedWord();
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				parser.nextToken();
+
+				switch (field) {
+					case "word" -> word.setWord(parser.getText());
+					case "start" -> word.setStart(parser.getDoubleValue());
+					case "end" -> word.setEnd(parser.getDoubleValue());
+					case "conf" -> word.setConf(parser.getDoubleValue());
+					default -> parser.skipChildren();
+				}
+			}
+			words.add(word);
+		}
+		return words;
+	}
+}
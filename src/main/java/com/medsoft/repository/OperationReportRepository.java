@@ -1,9 +1,15 @@
 package com.medsoft.repository;
 
 import com.medsoft.models.OperationReport;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface OperationReportRepository extends JpaRepository<OperationReport, Long> {
+public interface OperationReportRepository
+		extends JpaRepository<OperationReport, Long>, OperationReportSearchRepository {
+
+	List<OperationReport> findByDoctorFullNameOrderByCreatedAtDescIdDesc(String doctorFullName, Limit limit);
 }
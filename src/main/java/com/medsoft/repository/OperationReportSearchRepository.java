@@ -0,0 +1,22 @@
+package com.medsoft.repository;
+
+import com.medsoft.models.OperationReport;
+import com.medsoft.models.dto.ReportSearchCriteria;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface OperationReportSearchRepository {
+
+	/**
+	 * Возвращает до {@code limit} отчетов после курсора, новые первыми.
+	 */
+	List<OperationReport> search(ReportSearchCriteria criteria, int limit);
+
+	/**
+	 * Все отчеты под фильтрами, старые первыми, потоком с сервера порциями по {@code fetchSize}.
+	 * Вызывается внутри транзакции; поток нужно закрыть. Отчеты приходят отсоединёнными
+	 * от контекста персистентности.
+	 */
+	Stream<OperationReport> stream(ReportSearchCriteria criteria, int fetchSize);
+}
@@ -0,0 +1,118 @@
+package com.medsoft.repository;
+
+import com.medsoft.models.OperationReport;
+import com.medsoft.models.dto.ReportSearchCriteria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Поиск отчетов собранным под фильтры нативным SQL. Страницы выбираются
+ * по ключу {@code (created_at, id)} без OFFSET, поэтому стоимость запроса
+ * не зависит от номера страницы. Текст ищется по колонке {@code search_vector}
+ * с GIN-индексом (см. миграцию {@code operation_reports_search}).
+ * Выгрузка читает те же фильтры курсором PostgreSQL: драйвер держит в памяти
+ * одну порцию строк, а каждый отчет сразу отсоединяется от контекста.
+ */
+public class OperationReportSearchRepositoryImpl implements OperationReportSearchRepository {
+
+	private static final String SELECT = """
+			SELECT id, patient_full_name, doctor_full_name, diagnosis, operation_description,
+			       filler_full_name, personal_number, created_at
+			FROM operation_reports
+			""";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<OperationReport> search(ReportSearchCriteria criteria, int limit) {
+		StringBuilder sql = new StringBuilder(SELECT);
+		List<Object> parameters = new ArrayList<>();
+		String glue = appendFilters(criteria, sql, parameters);
+
+		if (criteria.getCursor() != null) {
+			sql.append(glue).append("(created_at, id) < (?, ?) ");
+			parameters.add(criteria.getCursor().getCreatedAt());
+			parameters.add(criteria.getCursor().getId());
+		}
+
+		sql.append("ORDER BY created_at DESC, id DESC LIMIT ?");
+		parameters.add(limit);
+
+		return query(sql, parameters).getResultList();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Stream<OperationReport> stream(ReportSearchCriteria criteria, int fetchSize) {
+		StringBuilder sql = new StringBuilder(SELECT);
+		List<Object> parameters = new ArrayList<>();
+		appendFilters(criteria, sql, parameters);
+		sql.append("ORDER BY created_at, id");
+
+		Stream<OperationReport> reports = query(sql, parameters)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultStream();
+		return reports.peek(entityManager::detach);
+	}
+
+	private Query query(StringBuilder sql, List<Object> parameters) {
+		Query query = entityManager.createNativeQuery(sql.toString(), OperationReport.class);
+		for (int i = 0; i < parameters.size(); i++) {
+			query.setParameter(i + 1, parameters.get(i));
+		}
+		return query;
+	}
+
+	/** Дописывает условия фильтров и возвращает связку для следующего условия. */
+	private static String appendFilters(ReportSearchCriteria criteria, StringBuilder sql, List<Object> parameters) {
+		String glue = "WHERE ";
+
+		if (hasText(criteria.getPatient())) {
+			sql.append(glue).append("lower(patient_full_name) LIKE ? ESCAPE '\\' ");
+			parameters.add(prefixPattern(criteria.getPatient()));
+			glue = "AND ";
+		}
+		if (hasText(criteria.getDoctor())) {
+			sql.append(glue).append("lower(doctor_full_name) LIKE ? ESCAPE '\\' ");
+			parameters.add(prefixPattern(criteria.getDoctor()));
+			glue = "AND ";
+		}
+		if (criteria.getCreatedFrom() != null) {
+			sql.append(glue).append("created_at >= ? ");
+			parameters.add(criteria.getCreatedFrom());
+			glue = "AND ";
+		}
+		if (criteria.getCreatedTo() != null) {
+			sql.append(glue).append("created_at < ? ");
+			parameters.add(criteria.getCreatedTo());
+			glue = "AND ";
+		}
+		if (hasText(criteria.getText())) {
+			sql.append(glue).append("search_vector @@ websearch_to_tsquery('russian', ?) ");
+			parameters.add(criteria.getText());
+			glue = "AND ";
+		}
+		return glue;
+	}
+
+	private static boolean hasText(String value) {
+		return value != null && !value.isBlank();
+	}
+
+	private static String prefixPattern(String value) {
+		String escaped = value.strip().toLowerCase()
+				.replace("\\", "\\\\")
+				.replace("%", "\\%")
+				.replace("_", "\\_");
+		return escaped + "%";
+	}
+}
@@ -0,0 +1,83 @@
+package com.medsoft.repository;
+
+import com.medsoft.models.ReportDraft;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Черновики хранятся через JDBC: сохранение пачки — один batch из upsert'ов,
+ * без чтения строк перед записью.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReportDraftRepository {
+
+	private static final String UPSERT = """
+			INSERT INTO report_drafts (session_id, patient_full_name, doctor_full_name, diagnosis,
+			                           operation_description, filler_full_name, personal_number,
+			                           active_field, version, updated_at)
+			VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+			ON CONFLICT (session_id) DO UPDATE SET
+			    patient_full_name = EXCLUDED.patient_full_name,
+			    doctor_full_name = EXCLUDED.doctor_full_name,
+			    diagnosis = EXCLUDED.diagnosis,
+			    operation_description = EXCLUDED.operation_description,
+			    filler_full_name = EXCLUDED.filler_full_name,
+			    personal_number = EXCLUDED.personal_number,
+			    active_field = EXCLUDED.active_field,
+			    version = EXCLUDED.version,
+			    updated_at = EXCLUDED.updated_at
+			WHERE report_drafts.version < EXCLUDED.version
+			""";
+
+	private static final String SELECT = """
+			SELECT session_id, patient_full_name, doctor_full_name, diagnosis, operation_description,
+			       filler_full_name, personal_number, active_field, version, updated_at
+			FROM report_drafts
+			WHERE session_id = ?
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public void upsertAll(List<ReportDraft> drafts) {
+		jdbcTemplate.batchUpdate(UPSERT, drafts, drafts.size(), (statement, draft) -> {
+			statement.setString(1, draft.getSessionId());
+			int index = 2;
+			for (String field : ReportDraft.FIELDS) {
+				statement.setString(index++, draft.getFields().get(field));
+			}
+			statement.setString(index++, draft.getActiveField());
+			statement.setLong(index++, draft.getVersion());
+			statement.setTimestamp(index, Timestamp.valueOf(draft.getUpdatedAt()));
+		});
+	}
+
+	public Optional<ReportDraft> findById(String sessionId) {
+		return jdbcTemplate.query(SELECT, (rs, row) -> {
+			ReportDraft draft = new ReportDraft(rs.getString("session_id"));
+			int index = 2;
+			for (String field : ReportDraft.FIELDS) {
+				draft.getFields().put(field, rs.getString(index++));
+			}
+			draft.setActiveField(rs.getString("active_field"));
+			draft.setVersion(rs.getLong("version"));
+			draft.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+			return draft;
+		}, sessionId).stream().findFirst();
+	}
+
+	public void delete(String sessionId) {
+		jdbcTemplate.update("DELETE FROM report_drafts WHERE session_id = ?", sessionId);
+	}
+
+	/** Удаляет черновики, не менявшиеся с {@code cutoff}; возвращает их число. */
+	public int deleteUpdatedBefore(LocalDateTime cutoff) {
+		return jdbcTemplate.update("DELETE FROM report_drafts WHERE updated_at < ?", Timestamp.valueOf(cutoff));
+	}
+}
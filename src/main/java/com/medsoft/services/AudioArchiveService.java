@@ -0,0 +1,23 @@
+package com.medsoft.services;
+
+import com.medsoft.audio.SegmentedAudioWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface AudioArchiveService {
+	/** Открывает архив сессии или возвращает {@code null}, если архив выключен. */
+	SegmentedAudioWriter open(String sessionId);
+
+	/** Ставит блок в очередь записи, не блокируя вызывающий поток. */
+	void append(SegmentedAudioWriter archive, long offset, byte[] data, int length);
+
+	void close(SegmentedAudioWriter archive);
+
+	Optional<Path> find(String sessionId);
+
+	/** Пишет WAV с фрагментом сессии {@code [fromSeconds, toSeconds)}. */
+	long writeWav(Path sessionDirectory, double fromSeconds, double toSeconds, OutputStream out) throws IOException;
+}
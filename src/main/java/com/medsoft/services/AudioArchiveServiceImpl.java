@@ -0,0 +1,244 @@
+package com.medsoft.services;
+
+import com.medsoft.audio.SegmentedAudioWriter;
+import com.medsoft.recognition.RecognizerPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Архив исходного звука сессий для аудита и повторного распознавания.
+ * Поток декодирования только копирует кадр в свободный блок из пула и кладёт его
+ * в очередь; в файлы пишет отдельный поток {@code audio-archive}. Если диск не
+ * успевает и свободных блоков нет, блок теряется (счётчик {@code voice.archive.dropped_blocks}),
+ * а живое распознавание не ждёт. Сессии хранятся в каталогах по дням начала,
+ * каталоги старше {@code voice.archive.retention-days} удаляются по расписанию.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AudioArchiveServiceImpl implements AudioArchiveService {
+
+	private static final int BLOCK_BYTES = 4096;
+
+	private final MeterRegistry meterRegistry;
+
+	@Value("${voice.archive.enabled:true}")
+	private boolean enabled;
+
+	@Value("${voice.archive.dir:./audio-archive}")
+	private Path archiveDir;
+
+	@Value("${voice.archive.segment-bytes:16777216}")
+	private long segmentBytes;
+
+	@Value("${voice.archive.queue-blocks:2048}")
+	private int queueBlocks;
+
+	@Value("${voice.archive.retention-days:30}")
+	private int retentionDays;
+
+	private BlockingQueue<Block> freeBlocks;
+	private BlockingQueue<Block> queue;
+	private Counter droppedBlocks;
+	private Thread writer;
+	private volatile boolean running = true;
+
+	@PostConstruct
+	public void init() {
+		freeBlocks = new ArrayBlockingQueue<>(queueBlocks);
+		for (int i = 0; i < queueBlocks; i++) {
+			freeBlocks.add(new Block());
+		}
+		queue = new LinkedBlockingQueue<>();
+
+		droppedBlocks = Counter.builder("voice.archive.dropped_blocks")
+				.description("Блоки звука, не попавшие в архив из-за отставания записи")
+				.register(meterRegistry);
+		Gauge.builder("voice.archive.queue", queue, BlockingQueue::size)
+				.description("Блоки, ожидающие записи в архив")
+				.register(meterRegistry);
+
+		if (enabled) {
+			writer = new Thread(this::run, "audio-archive");
+			writer.setDaemon(true);
+			writer.start();
+			log.info("Архив звука: {}, хранение {} дн.", archiveDir.toAbsolutePath(), retentionDays);
+		}
+	}
+
+	@Override
+	public SegmentedAudioWriter open(String sessionId) {
+		if (!enabled) {
+			return null;
+		}
+		try {
+			return new SegmentedAudioWriter(sessionId,
+					archiveDir.resolve(LocalDate.now().toString()).resolve(sessionId), segmentBytes);
+		} catch (IOException e) {
+			log.warn("Сессия {} не будет архивироваться: {}", sessionId, e.getMessage());
+			return null;
+		}
+	}
+
+	@Override
+	public void append(SegmentedAudioWriter archive, long offset, byte[] data, int length) {
+		Block block = length <= BLOCK_BYTES ? freeBlocks.poll() : null;
+		if (block == null) {
+			droppedBlocks.increment();
+			return;
+		}
+		block.archive = archive;
+		block.offset = offset;
+		block.buffer.clear();
+		block.buffer.put(data, 0, length).flip();
+		queue.add(block);
+	}
+
+	@Override
+	public void close(SegmentedAudioWriter archive) {
+		Block block = new Block(0);
+		block.archive = archive;
+		block.close = true;
+		queue.add(block);
+	}
+
+	private void run() {
+		while (running || !queue.isEmpty()) {
+			Block block;
+			try {
+				block = queue.poll(100, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (block == null) {
+				continue;
+			}
+
+			try {
+				if (block.close) {
+					block.archive.close();
+				} else {
+					block.archive.write(block.offset, block.buffer);
+				}
+			} catch (IOException e) {
+				log.error("Ошибка записи архива сессии {}: {}", block.archive.getSessionId(), e.getMessage());
+			} finally {
+				block.archive = null;
+				if (!block.close) {
+					freeBlocks.add(block);
+				}
+			}
+		}
+	}
+
+	@Override
+	public Optional<Path> find(String sessionId) {
+		// Идентификатор приходит из URL: это должно быть простое имя каталога, а не путь
+		if (sessionId.isEmpty() || sessionId.startsWith(".")
+				|| sessionId.indexOf('/') >= 0 || sessionId.indexOf('\\') >= 0) {
+			return Optional.empty();
+		}
+		if (!Files.isDirectory(archiveDir)) {
+			return Optional.empty();
+		}
+		try (Stream<Path> days = Files.list(archiveDir)) {
+			return days.map(day -> day.resolve(sessionId))
+					.filter(Files::isDirectory)
+					.findFirst();
+		} catch (IOException e) {
+			log.warn("Ошибка поиска архива сессии {}: {}", sessionId, e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public long writeWav(Path sessionDirectory, double fromSeconds, double toSeconds, OutputStream out) throws IOException {
+		int sampleRate = (int) RecognizerPool.SAMPLE_RATE;
+		long from = (long) (Math.max(0, fromSeconds) * sampleRate) * 2;
+		long to = toSeconds > 0 ? (long) (toSeconds * sampleRate) * 2 : Long.MAX_VALUE;
+		return SegmentedAudioWriter.copySpan(SegmentedAudioWriter.readIndex(sessionDirectory), from, to, sampleRate, out);
+	}
+
+	@Scheduled(fixedDelayString = "${voice.archive.cleanup-interval-ms:3600000}", initialDelay = 60000)
+	public void purgeExpired() {
+		if (!Files.isDirectory(archiveDir)) {
+			return;
+		}
+		LocalDate oldest = LocalDate.now().minusDays(retentionDays);
+		try (Stream<Path> days = Files.list(archiveDir)) {
+			days.filter(day -> isBefore(day, oldest)).forEach(this::deleteDay);
+		} catch (IOException e) {
+			log.error("Ошибка очистки архива звука: {}", e.getMessage(), e);
+		}
+	}
+
+	private static boolean isBefore(Path day, LocalDate oldest) {
+		try {
+			return LocalDate.parse(day.getFileName().toString()).isBefore(oldest);
+		} catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+
+	private void deleteDay(Path day) {
+		try (Stream<Path> files = Files.walk(day)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					log.warn("Не удалось удалить {}: {}", path, e.getMessage());
+				}
+			});
+			log.info("Архив звука за {} удалён по сроку хранения", day.getFileName());
+		} catch (IOException e) {
+			log.error("Ошибка удаления архива {}: {}", day, e.getMessage());
+		}
+	}
+
+	@PreDestroy
+	public void cleanup() throws InterruptedException {
+		running = false;
+		if (writer != null) {
+			writer.join(TimeUnit.SECONDS.toMillis(5));
+		}
+	}
+
+	private static final class Block {
+		private final ByteBuffer buffer;
+		private SegmentedAudioWriter archive;
+		private long offset;
+		private boolean close;
+
+		private Block() {
+			this(BLOCK_BYTES);
+		}
+
+		private Block(int capacity) {
+			this.buffer = ByteBuffer.allocate(capacity);
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package com.medsoft.services;
+
+import com.medsoft.audio.PcmFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+public interface BatchTranscriptionService {
+	PcmFile open(Path recording, int rawSampleRate) throws IOException;
+
+	/**
+	 * Пишет в {@code out} NDJSON с результатами в порядке звука. Вместо текста
+	 * фрагмента, который не удалось расшифровать, пишется запись
+	 * {@code {"type":"error","chunk","startTime","endTime","error"}}.
+	 */
+	void transcribe(PcmFile recording, OutputStream out) throws IOException;
+}
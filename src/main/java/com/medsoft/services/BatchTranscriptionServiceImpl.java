@@ -0,0 +1,194 @@
+package com.medsoft.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.audio.AudioChunk;
+import com.medsoft.audio.PcmFile;
+import com.medsoft.audio.SilenceSplitter;
+import com.medsoft.models.RecognitionResult;
+import com.medsoft.recognition.RecognitionResultFactory;
+import com.medsoft.recognition.RecognizerPool;
+import com.medsoft.recognition.VoskResult;
+import com.medsoft.recognition.VoskResultDecoder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BatchTranscriptionServiceImpl implements BatchTranscriptionService {
+
+	private static final int BLOCK_BYTES = 8192;
+
+	private final RecognizerPool recognizerPool;
+	private final VoskResultDecoder resultDecoder;
+	private final RecognitionResultFactory resultFactory;
+	private final ObjectMapper objectMapper;
+
+	@Value("${voice.batch.threads:0}")
+	private int threads;
+
+	@Value("${voice.batch.min-silence-ms:400}")
+	private int minSilenceMs;
+
+	@Value("${voice.batch.min-chunk-ms:5000}")
+	private int minChunkMs;
+
+	@Value("${voice.batch.max-chunk-ms:30000}")
+	private int maxChunkMs;
+
+	private ExecutorService batchExecutor;
+	private SilenceSplitter splitter;
+
+	@PostConstruct
+	public void init() {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		AtomicInteger counter = new AtomicInteger();
+		batchExecutor = Executors.newFixedThreadPool(poolSize, runnable -> {
+			Thread thread = new Thread(runnable, "vosk-batch-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		splitter = new SilenceSplitter(minSilenceMs, minChunkMs, maxChunkMs);
+	}
+
+	@Override
+	public PcmFile open(Path recording, int rawSampleRate) throws IOException {
+		PcmFile file = PcmFile.open(recording, rawSampleRate, 1);
+
+		if (file.getSampleRate() != (int) RecognizerPool.SAMPLE_RATE || file.getChannels() != 1) {
+			throw new IllegalArgumentException("Ожидается PCM 16 кГц моно, получено "
+					+ file.getSampleRate() + " Гц, каналов: " + file.getChannels());
+		}
+		return file;
+	}
+
+	@Override
+	public void transcribe(PcmFile recording, OutputStream out) throws IOException {
+		String jobId = UUID.randomUUID().toString();
+		List<AudioChunk> chunks = splitter.split(recording);
+		long startedAt = System.currentTimeMillis();
+
+		log.info("Пакетная расшифровка {}: {} мс аудио, фрагментов: {}",
+				jobId, recording.durationMs(), chunks.size());
+
+		List<Future<List<RecognitionResult>>> futures = new ArrayList<>(chunks.size());
+		for (AudioChunk chunk : chunks) {
+			futures.add(batchExecutor.submit(() -> decodeChunk(jobId, recording, chunk)));
+		}
+
+		int failed = 0;
+		try {
+			// Фрагменты декодируются параллельно, а пишутся в порядке звука:
+			// готовый фрагмент ждёт, пока допишутся все предыдущие
+			for (int i = 0; i < chunks.size(); i++) {
+				AudioChunk chunk = chunks.get(i);
+				List<RecognitionResult> results;
+				try {
+					results = futures.get(i).get();
+				} catch (ExecutionException e) {
+					failed++;
+					log.error("Ошибка расшифровки фрагмента {} задания {}: {}",
+							chunk.getIndex(), jobId, e.getCause().getMessage(), e.getCause());
+					writeLine(out, chunkError(jobId, recording, chunk, e.getCause()));
+					out.flush();
+					continue;
+				}
+
+				for (RecognitionResult result : results) {
+					writeLine(out, result);
+				}
+				out.flush();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Пакетная расшифровка " + jobId + " прервана");
+		} finally {
+			futures.forEach(future -> future.cancel(true));
+		}
+
+		long elapsed = Math.max(1, System.currentTimeMillis() - startedAt);
+		log.info("Пакетная расшифровка {} завершена за {} мс, скорость x{}, фрагментов с ошибкой: {}",
+				jobId, elapsed, String.format("%.2f", (double) recording.durationMs() / elapsed), failed);
+	}
+
+	private void writeLine(OutputStream out, Object value) throws IOException {
+		out.write(objectMapper.writeValueAsBytes(value));
+		out.write('\n');
+	}
+
+	/** Запись вместо текста фрагмента, который не удалось расшифровать. */
+	private static Map<String, Object> chunkError(String jobId, PcmFile recording, AudioChunk chunk, Throwable cause) {
+		double bytesPerSecond = recording.getSampleRate() * 2.0;
+		return Map.of(
+				"type", "error",
+				"sessionId", jobId,
+				"chunk", chunk.getIndex(),
+				"startTime", chunk.getStartTime(),
+				"endTime", chunk.getStartTime() + chunk.getLength() / bytesPerSecond,
+				"error", String.valueOf(cause.getMessage())
+		);
+	}
+
+	private List<RecognitionResult> decodeChunk(String jobId, PcmFile recording, AudioChunk chunk) throws IOException {
+		org.vosk.Recognizer recognizer = recognizerPool.borrow();
+		List<RecognitionResult> results = new ArrayList<>();
+		long startedAt = System.currentTimeMillis();
+
+		try {
+			ByteBuffer audio = recording.slice(chunk.getOffset(), chunk.getLength());
+			byte[] block = new byte[BLOCK_BYTES];
+
+			while (audio.hasRemaining()) {
+				if (Thread.currentThread().isInterrupted()) {
+					return results;
+				}
+				int length = Math.min(block.length, audio.remaining());
+				audio.get(block, 0, length);
+
+				if (recognizer.acceptWaveForm(block, length)) {
+					addResult(results, jobId, resultDecoder.result(recognizer), chunk, startedAt);
+				}
+			}
+			addResult(results, jobId, resultDecoder.finalResult(recognizer), chunk, startedAt);
+			return results;
+
+		} finally {
+			recognizerPool.release(recognizer);
+		}
+	}
+
+	private void addResult(List<RecognitionResult> results, String jobId, VoskResult result,
+						   AudioChunk chunk, long startedAt) {
+		if (!result.isEmpty()) {
+			results.add(resultFactory.create(jobId, result.shifted(chunk.getStartTime()),
+					System.currentTimeMillis() - startedAt));
+		}
+	}
+
+	@PreDestroy
+	public void cleanup() {
+		batchExecutor.shutdownNow();
+		try {
+			batchExecutor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
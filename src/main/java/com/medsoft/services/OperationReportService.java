@@ -2,8 +2,26 @@ package com.medsoft.services;
 
 import com.medsoft.models.dto.OperationReportDto;
 import com.medsoft.models.OperationReport;
+import com.medsoft.models.dto.ReportPage;
+import com.medsoft.models.dto.ReportSearchCriteria;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface OperationReportService {
 
 	OperationReport createReport(OperationReportDto dto);
+
+	/**
+	 * Сохраняет отчёты одной транзакцией пакетными вставками.
+	 * Возвращает идентификаторы в порядке входного списка.
+	 */
+	List<Long> createReports(List<OperationReportDto> dtos);
+
+	ReportPage searchReports(ReportSearchCriteria criteria);
+
+	Optional<OperationReport> getReport(Long id);
+
+	/** Последние {@code reports.cache.recent.size} отчетов врача, новые первыми. */
+	List<OperationReport> getRecentReports(String doctorFullName);
 }
@@ -1,12 +1,28 @@
 package com.medsoft.services;
 
+import com.medsoft.config.CacheConfig;
 import com.medsoft.models.dto.OperationReportDto;
 import com.medsoft.models.OperationReport;
+import com.medsoft.models.dto.ReportCursor;
+import com.medsoft.models.dto.ReportPage;
+import com.medsoft.models.dto.ReportSearchCriteria;
 import com.medsoft.repository.OperationReportRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -14,19 +30,83 @@ public class OperationReportServiceImpl implements OperationReportService {
 
 	private final OperationReportRepository reportRepository;
 
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+	private int batchSize;
+
+	@Value("${reports.cache.recent.size:20}")
+	private int recentSize;
+
 	@Override
+	@Caching(
+			put = @CachePut(cacheNames = CacheConfig.REPORTS, key = "#result.id"),
+			evict = @CacheEvict(cacheNames = CacheConfig.RECENT_REPORTS, key = "#dto.doctorFullName")
+	)
 	public OperationReport createReport(OperationReportDto dto) {
-		OperationReport report = OperationReport.builder()
+		return reportRepository.save(toEntity(dto, LocalDateTime.now()));
+	}
+
+	@Override
+	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.RECENT_REPORTS, allEntries = true)
+	public List<Long> createReports(List<OperationReportDto> dtos) {
+		List<Long> ids = new ArrayList<>(dtos.size());
+		LocalDateTime createdAt = LocalDateTime.now();
+
+		for (int i = 0; i < dtos.size(); i++) {
+			OperationReport report = toEntity(dtos.get(i), createdAt);
+			entityManager.persist(report);
+			ids.add(report.getId());
+
+			// Сбрасываем пачку в базу и отпускаем сущности, чтобы контекст
+			// персистентности не рос вместе с размером запроса
+			if ((i + 1) % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		return ids;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public ReportPage searchReports(ReportSearchCriteria criteria) {
+		int limit = criteria.getLimit();
+		List<OperationReport> rows = reportRepository.search(criteria, limit + 1);
+
+		if (rows.size() <= limit) {
+			return new ReportPage(rows, null);
+		}
+
+		List<OperationReport> page = rows.subList(0, limit);
+		OperationReport last = page.get(limit - 1);
+		return new ReportPage(page, new ReportCursor(last.getCreatedAt(), last.getId()).encode());
+	}
+
+	@Override
+	@Cacheable(cacheNames = CacheConfig.REPORTS, key = "#id", unless = "#result == null")
+	public Optional<OperationReport> getReport(Long id) {
+		return reportRepository.findById(id);
+	}
+
+	@Override
+	@Cacheable(cacheNames = CacheConfig.RECENT_REPORTS, key = "#doctorFullName")
+	public List<OperationReport> getRecentReports(String doctorFullName) {
+		return List.copyOf(reportRepository.findByDoctorFullNameOrderByCreatedAtDescIdDesc(
+				doctorFullName, Limit.of(recentSize)));
+	}
+
+	private static OperationReport toEntity(OperationReportDto dto, LocalDateTime createdAt) {
+		return OperationReport.builder()
 				.patientFullName(dto.getPatientFullName())
 				.doctorFullName(dto.getDoctorFullName())
 				.diagnosis(dto.getDiagnosis())
 				.operationDescription(dto.getOperationDescription())
 				.fillerFullName(dto.getFillerFullName())
 				.personalNumber(dto.getPersonalNumber())
-				.createdAt(LocalDateTime.now())
+				.createdAt(createdAt)
 				.build();
-
-		return reportRepository.save(report);
 	}
 }
-
@@ -0,0 +1,355 @@
+package com.medsoft.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.audio.PolyphaseResampler;
+import com.medsoft.audio.StreamFormat;
+import com.medsoft.models.PartialResult;
+import com.medsoft.models.RecognitionResult;
+import com.medsoft.models.RecognizedWord;
+import com.medsoft.recognition.*;
+import com.medsoft.websocket.VoiceWebSocketHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Бэкенд распознавания без модели и без звуковой карты ({@code voice.backend=replay}).
+ * Вместо декодера воспроизводит сценарий диктовки ({@code voice.replay.corpus}):
+ * фраза считается произнесённой, когда сессия получила столько звука, сколько длится
+ * фраза с паузой перед ней. Дальше результат идёт тем же путём, что и у Vosk —
+ * поиск команды, нормализация числительных, рассылка по WebSocket и черновик, —
+ * поэтому нагрузочный тест меряет всё, кроме самого декодера.
+ * <p>
+ * Для каждой сессии результаты выдаёт один поток из {@code voice.replay.threads},
+ * как поток декодирования у настоящего бэкенда.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "voice.backend", havingValue = "replay")
+public class ReplayRecognitionServiceImpl implements VoiceRecognitionService {
+
+	private static final int BYTES_PER_SECOND = (int) RecognizerPool.SAMPLE_RATE * 2;
+	private static final int MICROPHONE_FRAME_BYTES = 4096;
+
+	private final CommandMatcher commandMatcher;
+	private final RecognitionResultFactory resultFactory;
+	private final VoiceWebSocketHandler voiceWebSocketHandler;
+	private final RecognitionMetrics metrics;
+	private final ReportDraftService reportDraftService;
+	private final SessionLifecycleScheduler lifecycleScheduler;
+	private final ResourceLoader resourceLoader;
+	private final ObjectMapper objectMapper;
+
+	@Value("${voice.replay.corpus:classpath:replay/dictation-corpus.txt}")
+	private String corpusLocation;
+
+	@Value("${voice.replay.threads:0}")
+	private int threads;
+
+	@Value("${voice.replay.decode-delay-ms:0}")
+	private long decodeDelayMs;
+
+	@Value("${voice.audio.max-frame-bytes:32768}")
+	private int maxFrameBytes;
+
+	@Value("${voice.session.max-duration-ms:14400000}")
+	private long maxDurationMs;
+
+	@Value("${voice.session.idle-timeout-ms:120000}")
+	private long idleTimeoutMs;
+
+	@Value("${voice.partial.enabled:true}")
+	private boolean partialResultsEnabled;
+
+	@Value("${voice.partial.min-interval-ms:250}")
+	private long partialMinIntervalMs;
+
+	private ReplayCorpus corpus;
+	private ScheduledExecutorService[] decoders;
+	private ScheduledExecutorService microphones;
+	private final AtomicInteger nextDecoder = new AtomicInteger();
+	private final Map<String, ReplaySession> sessions = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() throws Exception {
+		Resource resource = resourceLoader.getResource(corpusLocation);
+		try (InputStream in = resource.getInputStream()) {
+			corpus = ReplayCorpus.load(in, objectMapper);
+		}
+
+		int count = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		decoders = new ScheduledExecutorService[count];
+		for (int i = 0; i < count; i++) {
+			String name = "replay-decode-" + (i + 1);
+			decoders[i] = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, name));
+		}
+		microphones = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "replay-microphone"));
+
+		metrics.bindSessions(sessions);
+		lifecycleScheduler.addExpiryListener((sessionId, reason) -> stopSession(sessionId));
+		log.info("Бэкенд воспроизведения: {} фраз из {}, потоков: {}", corpus.size(), corpusLocation, count);
+	}
+
+	private static Thread daemon(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	@Override
+	public String startSession() {
+		return startSession(StreamFormat.RECOGNIZER);
+	}
+
+	@Override
+	public String startSession(StreamFormat format) {
+		return openSession(maxDurationMs, format).id;
+	}
+
+	private ReplaySession openSession(long maxDurationMs, StreamFormat format) {
+		ReplaySession session = new ReplaySession(UUID.randomUUID().toString(), format,
+				format.isRecognizerNative() ? null : new PolyphaseResampler(format, BYTES_PER_SECOND / 2, maxFrameBytes),
+				decoders[Math.floorMod(nextDecoder.getAndIncrement(), decoders.length)],
+				corpus, ThreadLocalRandom.current().nextInt(corpus.size()));
+
+		sessions.put(session.id, session);
+		lifecycleScheduler.track(session.id, maxDurationMs, idleTimeoutMs, () -> session.lastCapturedAt);
+		log.info("Сессия воспроизведения {} запущена, формат {}", session.id, format);
+		return session;
+	}
+
+	/** Виртуальный микрофон: тишина в реальном темпе, фразы идут по сценарию. */
+	@Override
+	public String startMicrophoneSession(long maxDurationMs) {
+		ReplaySession session = openSession(maxDurationMs > 0 ? maxDurationMs : this.maxDurationMs, StreamFormat.RECOGNIZER);
+		byte[] silence = new byte[MICROPHONE_FRAME_BYTES];
+		long periodMicros = MICROPHONE_FRAME_BYTES * 1_000_000L / BYTES_PER_SECOND;
+		session.microphone = microphones.scheduleAtFixedRate(
+				() -> feedAudio(session.id, silence, 0, silence.length), periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+		return session.id;
+	}
+
+	@Override
+	public void stopSession(String sessionId) {
+		lifecycleScheduler.cancel(sessionId);
+
+		ReplaySession session = sessions.remove(sessionId);
+		if (session == null) {
+			log.warn("Сессия распознавания {} не найдена", sessionId);
+			return;
+		}
+		session.active = false;
+		if (session.microphone != null) {
+			session.microphone.cancel(false);
+		}
+		session.decoder.execute(() -> voiceWebSocketHandler.sessionFinished(sessionId));
+		log.info("Сессия воспроизведения {} остановлена, фраз: {}", sessionId, session.emitted);
+	}
+
+	@Override
+	public List<Map<String, Object>> listSessions() {
+		return lifecycleScheduler.snapshot();
+	}
+
+	/**
+	 * Учитывает принятый звук и выдаёт фразы, которые к этому моменту «прозвучали».
+	 * Вызывается одним потоком-источником сессии.
+	 */
+	@Override
+	public boolean feedAudio(String sessionId, byte[] data, int offset, int length) {
+		ReplaySession session = sessions.get(sessionId);
+		if (session == null || !session.active) {
+			return false;
+		}
+
+		int received = length;
+		if (session.resampler != null) {
+			received = 0;
+			int end = offset + length;
+			for (int position = offset; position < end; position += session.resampler.maxInputBytes()) {
+				received += session.resampler.process(data, position,
+						Math.min(session.resampler.maxInputBytes(), end - position));
+			}
+		}
+
+		long capturedAt = System.nanoTime();
+		session.lastCapturedAt = capturedAt;
+		session.receivedBytes += received;
+		double now = (double) session.receivedBytes / BYTES_PER_SECOND;
+
+		while (now >= session.utteranceEnd()) {
+			VoskResult utterance = session.utterance.result().shifted(session.utteranceStart);
+			session.decoder.schedule(() -> publish(session, utterance, capturedAt), decodeDelayMs, TimeUnit.MILLISECONDS);
+			session.advance(corpus);
+		}
+
+		if (partialResultsEnabled && now > session.utteranceStart) {
+			long wallNow = System.currentTimeMillis();
+			if (wallNow - session.lastPartialAt >= partialMinIntervalMs) {
+				session.lastPartialAt = wallNow;
+				String partial = partialText(session.utterance.result(), now - session.utteranceStart);
+				// С той же задержкой, что и итоговые: промежуточный не обгоняет декодер
+				session.decoder.schedule(() -> publishPartial(session, partial), decodeDelayMs, TimeUnit.MILLISECONDS);
+			}
+		}
+		return true;
+	}
+
+	private static String partialText(VoskResult utterance, double elapsed) {
+		StringBuilder text = new StringBuilder();
+		for (RecognizedWord word : utterance.getWords()) {
+			if (word.getEnd() > elapsed) {
+				break;
+			}
+			if (!text.isEmpty()) {
+				text.append(' ');
+			}
+			text.append(word.getWord());
+		}
+		return text.toString();
+	}
+
+	private void publishPartial(ReplaySession session, String partial) {
+		String previous = session.lastPartial;
+		if (!session.active || partial.isEmpty() || partial.equals(previous)) {
+			return;
+		}
+		int offset = partial.startsWith(previous) ? previous.length() : 0;
+		session.lastPartial = partial;
+		voiceWebSocketHandler.publish(new PartialResult(session.id, offset, partial.substring(offset)));
+	}
+
+	private void publish(ReplaySession session, VoskResult utterance, long capturedAt) {
+		// Сессия остановлена, пока фраза ждала «декодирования»: после sessionFinished не публикуем
+		if (!session.active) {
+			return;
+		}
+		session.lastPartial = "";
+
+		long postProcessingStart = System.nanoTime();
+		CommandMatch command = commandMatcher.match(utterance.getText());
+		RecognitionResult result = resultFactory.create(session.id, utterance, 0, command);
+		long now = System.nanoTime();
+		metrics.recordPostProcessing(now - postProcessingStart);
+
+		long latency = Math.max(0, now - capturedAt);
+		metrics.recordCaptureToFinal(latency);
+		result.setProcessingTimeMs(TimeUnit.NANOSECONDS.toMillis(latency));
+		result.setAudioStart(result.getStartTime());
+		result.setAudioEnd(result.getEndTime());
+
+		session.emitted++;
+		voiceWebSocketHandler.publish(result);
+		reportDraftService.apply(result);
+	}
+
+	@Override
+	public boolean isSessionOpen(String sessionId) {
+		ReplaySession session = sessions.get(sessionId);
+		return session != null && session.active;
+	}
+
+	@Override
+	public Map<String, Object> getSessionStats(String sessionId) {
+		ReplaySession session = sessions.get(sessionId);
+		if (session == null) {
+			return null;
+		}
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("sessionId", session.id);
+		stats.put("backend", "replay");
+		stats.put("startedAt", session.startedAt);
+		stats.put("active", session.active);
+		stats.put("inputFormat", session.format.toString());
+		stats.put("receivedBytes", session.receivedBytes);
+		stats.put("receivedSeconds", (double) session.receivedBytes / BYTES_PER_SECOND);
+		stats.put("utterances", session.emitted);
+		return stats;
+	}
+
+	@Override
+	public boolean isCommand(String text) {
+		return commandMatcher.isCommand(text);
+	}
+
+	@Override
+	public Map<String, Object> getModelInfo() {
+		Map<String, Object> info = new LinkedHashMap<>();
+		info.put("backend", "replay");
+		info.put("corpus", corpusLocation);
+		info.put("utterances", corpus.size());
+		info.put("decodeDelayMs", decodeDelayMs);
+		return info;
+	}
+
+	@Override
+	public void reloadModel(String modelPath) {
+		throw new IllegalArgumentException("Бэкенд воспроизведения не использует модель");
+	}
+
+	@PreDestroy
+	public void cleanup() {
+		sessions.keySet().forEach(this::stopSession);
+		microphones.shutdownNow();
+		for (ScheduledExecutorService decoder : decoders) {
+			decoder.shutdown();
+		}
+	}
+
+	private static final class ReplaySession {
+		private final String id;
+		private final StreamFormat format;
+		private final PolyphaseResampler resampler;
+		private final ScheduledExecutorService decoder;
+		private final LocalDateTime startedAt = LocalDateTime.now();
+
+		private volatile boolean active = true;
+		private volatile long lastCapturedAt = System.nanoTime();
+		private volatile ScheduledFuture<?> microphone;
+
+		// Сценарий и счётчик звука принадлежат потоку-источнику
+		private volatile long receivedBytes;
+		private int index;
+		private ReplayCorpus.Utterance utterance;
+		private double utteranceStart;
+		private long lastPartialAt;
+
+		// Поля потока выдачи результатов
+		private String lastPartial = "";
+		private volatile int emitted;
+
+		private ReplaySession(String id, StreamFormat format, PolyphaseResampler resampler,
+							  ScheduledExecutorService decoder, ReplayCorpus corpus, int firstUtterance) {
+			this.id = id;
+			this.format = format;
+			this.resampler = resampler;
+			this.decoder = decoder;
+			this.index = firstUtterance - 1;
+			advance(corpus);
+		}
+
+		private double utteranceEnd() {
+			return utterance == null ? 0 : utteranceStart + utterance.duration();
+		}
+
+		private void advance(ReplayCorpus corpus) {
+			double previousEnd = utteranceEnd();
+			utterance = corpus.get(++index);
+			double jitter = 0.5 + ThreadLocalRandom.current().nextDouble();
+			utteranceStart = previousEnd + utterance.pauseBefore() * jitter;
+		}
+	}
+}
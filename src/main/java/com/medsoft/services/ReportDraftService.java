@@ -0,0 +1,21 @@
+package com.medsoft.services;
+
+import com.medsoft.models.OperationReport;
+import com.medsoft.models.RecognitionResult;
+import com.medsoft.models.ReportDraft;
+
+import java.util.Optional;
+
+public interface ReportDraftService {
+
+	/** Применяет к черновику сессии распознанный текст или команду навигации по полям. */
+	void apply(RecognitionResult result);
+
+	Optional<ReportDraft> getDraft(String sessionId);
+
+	/** Сохраняет черновик как отчет и удаляет его. Пусто, если черновика нет. */
+	Optional<OperationReport> finalizeDraft(String sessionId);
+
+	/** Записывает накопленные изменения в базу. */
+	void flush();
+}
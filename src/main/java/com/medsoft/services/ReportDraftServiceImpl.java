@@ -0,0 +1,206 @@
+package com.medsoft.services;
+
+import com.medsoft.models.OperationReport;
+import com.medsoft.models.RecognitionResult;
+import com.medsoft.models.ReportDraft;
+import com.medsoft.repository.ReportDraftRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Черновики живут в памяти и меняются на каждый результат распознавания,
+ * а в базу уходят раз в {@code reports.drafts.flush-interval-ms}: сколько бы
+ * фраз ни пришло за интервал, по черновику выполняется один upsert.
+ * Черновики, которые давно не менялись и уже записаны, выгружаются из памяти,
+ * а брошенные (сессия так и не дошла до «готово») удаляются из базы через
+ * {@code reports.drafts.retention-ms} после последнего изменения.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReportDraftServiceImpl implements ReportDraftService {
+
+	private final ReportDraftRepository draftRepository;
+	private final OperationReportService operationReportService;
+
+	@Value("${reports.drafts.idle-evict-ms:1800000}")
+	private long idleEvictMs;
+
+	@Value("${reports.drafts.retention-ms:604800000}")
+	private long retentionMs;
+
+	private final Map<String, ReportDraft> drafts = new ConcurrentHashMap<>();
+	private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	@Override
+	public void apply(RecognitionResult result) {
+		String sessionId = result.getSessionId();
+		boolean[] changed = new boolean[1];
+
+		drafts.compute(sessionId, (id, draft) -> {
+			ReportDraft target = draft != null ? draft : new ReportDraft(id);
+			changed[0] = applyTo(target, result);
+			if (changed[0]) {
+				target.setVersion(target.getVersion() + 1);
+				target.setUpdatedAt(LocalDateTime.now());
+			}
+			return draft != null || changed[0] ? target : null;
+		});
+
+		if (changed[0]) {
+			dirty.add(sessionId);
+		}
+	}
+
+	private static boolean applyTo(ReportDraft draft, RecognitionResult result) {
+		Map<String, String> fields = draft.getFields();
+		String active = draft.getActiveField();
+
+		if (!result.isCommand()) {
+			String text = result.getText();
+			if (text == null || text.isBlank()) {
+				return false;
+			}
+			String value = fields.get(active);
+			fields.put(active, value.isEmpty() ? text : value + " " + text);
+			return true;
+		}
+
+		int index = ReportDraft.FIELDS.indexOf(active);
+		switch (result.getRecognizedCommand()) {
+			case "NEXT_FIELD" -> draft.setActiveField(
+					ReportDraft.FIELDS.get(Math.min(index + 1, ReportDraft.FIELDS.size() - 1)));
+			case "PREVIOUS_FIELD" -> draft.setActiveField(ReportDraft.FIELDS.get(Math.max(index - 1, 0)));
+			case "CLEAR" -> fields.put(active, "");
+			default -> {
+				String field = ReportDraft.COMMAND_FIELDS.get(result.getCommandField());
+				if (field == null) {
+					return false;
+				}
+				draft.setActiveField(field);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Optional<ReportDraft> getDraft(String sessionId) {
+		ReportDraft draft = snapshot(sessionId);
+		return draft != null ? Optional.of(draft) : draftRepository.findById(sessionId);
+	}
+
+	@Override
+	public Optional<OperationReport> finalizeDraft(String sessionId) {
+		flushLock.lock();
+		try {
+			// Черновик снимается из памяти атомарно: результат, пришедший после этого,
+			// начнёт новый черновик, а не потеряется между чтением и удалением
+			ReportDraft draft = drafts.remove(sessionId);
+			dirty.remove(sessionId);
+			if (draft == null) {
+				Optional<ReportDraft> stored = draftRepository.findById(sessionId);
+				if (stored.isEmpty()) {
+					return Optional.empty();
+				}
+				draft = stored.get();
+			}
+
+			OperationReport report;
+			try {
+				report = operationReportService.createReport(draft.toReportDto());
+			} catch (RuntimeException e) {
+				// Отчет не сохранился — возвращаем черновик, если диктовка не начала новый
+				if (drafts.putIfAbsent(sessionId, draft) == null) {
+					dirty.add(sessionId);
+				}
+				throw e;
+			}
+			draftRepository.delete(sessionId);
+
+			log.info("Черновик {} сохранен как отчет {}", sessionId, report.getId());
+			return Optional.of(report);
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${reports.drafts.flush-interval-ms:2000}")
+	public void flush() {
+		flushLock.lock();
+		try {
+			List<String> ids = new ArrayList<>(dirty);
+			List<ReportDraft> batch = new ArrayList<>(ids.size());
+			for (String id : ids) {
+				dirty.remove(id);
+				ReportDraft draft = snapshot(id);
+				if (draft != null) {
+					batch.add(draft);
+				}
+			}
+
+			if (!batch.isEmpty()) {
+				try {
+					draftRepository.upsertAll(batch);
+				} catch (Exception e) {
+					log.error("Не удалось записать черновики ({}): {}", batch.size(), e.getMessage());
+					dirty.addAll(ids);
+					return;
+				}
+			}
+
+			evictIdle();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/** Удаляет из базы брошенные черновики; в памяти они к этому времени уже выгружены. */
+	@Scheduled(fixedDelayString = "${reports.drafts.purge-interval-ms:3600000}")
+	public void purgeAbandoned() {
+		LocalDateTime cutoff = LocalDateTime.now().minusNanos(retentionMs * 1_000_000);
+		flushLock.lock();
+		try {
+			int deleted = draftRepository.deleteUpdatedBefore(cutoff);
+			if (deleted > 0) {
+				log.info("Удалено брошенных черновиков: {} (не менялись с {})", deleted, cutoff);
+			}
+		} catch (Exception e) {
+			log.error("Не удалось удалить брошенные черновики: {}", e.getMessage());
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private ReportDraft snapshot(String sessionId) {
+		ReportDraft[] copy = new ReportDraft[1];
+		drafts.computeIfPresent(sessionId, (id, draft) -> {
+			copy[0] = draft.copy();
+			return draft;
+		});
+		return copy[0];
+	}
+
+	private void evictIdle() {
+		LocalDateTime cutoff = LocalDateTime.now().minusNanos(idleEvictMs * 1_000_000);
+		for (String id : drafts.keySet()) {
+			drafts.computeIfPresent(id, (key, draft) ->
+					!dirty.contains(key) && draft.getUpdatedAt().isBefore(cutoff) ? null : draft);
+		}
+	}
+
+	@PreDestroy
+	public void cleanup() {
+		flush();
+	}
+}
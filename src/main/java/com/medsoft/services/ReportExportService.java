@@ -0,0 +1,46 @@
+package com.medsoft.services;
+
+import com.medsoft.models.dto.ReportSearchCriteria;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+public interface ReportExportService {
+
+	enum Format {
+		NDJSON("application/x-ndjson", "ndjson"),
+		CSV("text/csv;charset=UTF-8", "csv");
+
+		private final String contentType;
+		private final String extension;
+
+		Format(String contentType, String extension) {
+			this.contentType = contentType;
+			this.extension = extension;
+		}
+
+		public String contentType() {
+			return contentType;
+		}
+
+		public String extension() {
+			return extension;
+		}
+
+		public static Format parse(String value) {
+			for (Format format : values()) {
+				if (format.name().equals(value.toUpperCase(Locale.ROOT))) {
+					return format;
+				}
+			}
+			throw new IllegalArgumentException("Неизвестный формат выгрузки: " + value);
+		}
+	}
+
+	/**
+	 * Пишет в {@code out} все отчеты под фильтрами, старые первыми.
+	 * Возвращает число выгруженных отчетов.
+	 */
+	long export(ReportSearchCriteria criteria, Format format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,121 @@
+package com.medsoft.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.models.OperationReport;
+import com.medsoft.models.dto.ReportSearchCriteria;
+import com.medsoft.repository.OperationReportRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка отчетов без накопления в памяти: строки читаются курсором
+ * порциями по {@code reports.export.fetch-size} и сразу пишутся в ответ,
+ * который сбрасывается клиенту каждые {@code reports.export.flush-rows} строк.
+ * Память не зависит от объёма выгрузки.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReportExportServiceImpl implements ReportExportService {
+
+	private static final int BUFFER_BYTES = 64 * 1024;
+	private static final String CSV_HEADER =
+			"id;patientFullName;doctorFullName;diagnosis;operationDescription;fillerFullName;personalNumber;createdAt\r\n";
+
+	private final OperationReportRepository reportRepository;
+	private final ObjectMapper objectMapper;
+
+	@Value("${reports.export.fetch-size:1000}")
+	private int fetchSize;
+
+	@Value("${reports.export.flush-rows:1000}")
+	private int flushRows;
+
+	@Override
+	@Transactional(readOnly = true)
+	public long export(ReportSearchCriteria criteria, Format format, OutputStream out) throws IOException {
+		long start = System.currentTimeMillis();
+		long rows;
+
+		try (Stream<OperationReport> reports = reportRepository.stream(criteria, fetchSize)) {
+			rows = switch (format) {
+				case NDJSON -> writeNdjson(reports.iterator(), out);
+				case CSV -> writeCsv(reports.iterator(), out);
+			};
+		}
+
+		log.info("Выгружено отчетов: {} ({}) за {} мс", rows, format, System.currentTimeMillis() - start);
+		return rows;
+	}
+
+	private long writeNdjson(Iterator<OperationReport> reports, OutputStream out) throws IOException {
+		long rows = 0;
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(new BufferedOutputStream(out, BUFFER_BYTES))) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			// По умолчанию Jackson ставит пробел перед каждым корневым значением, кроме первого
+			generator.setRootValueSeparator(null);
+			while (reports.hasNext()) {
+				generator.writeObject(reports.next());
+				generator.writeRaw('\n');
+				if (++rows % flushRows == 0) {
+					generator.flush();
+				}
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * CSV для табличных редакторов: разделитель «;», UTF-8 с BOM, чтобы
+	 * кириллица открывалась без выбора кодировки, поля в кавычках по RFC 4180.
+	 */
+	private long writeCsv(Iterator<OperationReport> reports, OutputStream out) throws IOException {
+		long rows = 0;
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_BYTES);
+		writer.write('\uFEFF');
+		writer.write(CSV_HEADER);
+
+		while (reports.hasNext()) {
+			OperationReport report = reports.next();
+			writer.write(String.valueOf(report.getId()));
+			writeCsvField(writer, report.getPatientFullName());
+			writeCsvField(writer, report.getDoctorFullName());
+			writeCsvField(writer, report.getDiagnosis());
+			writeCsvField(writer, report.getOperationDescription());
+			writeCsvField(writer, report.getFillerFullName());
+			writeCsvField(writer, report.getPersonalNumber());
+			writeCsvField(writer, String.valueOf(report.getCreatedAt()));
+			writer.write("\r\n");
+			if (++rows % flushRows == 0) {
+				writer.flush();
+			}
+		}
+		writer.flush();
+		return rows;
+	}
+
+	private static void writeCsvField(Writer writer, String value) throws IOException {
+		writer.write(';');
+		if (value == null) {
+			return;
+		}
+		writer.write('"');
+		int from = 0;
+		for (int quote = value.indexOf('"'); quote >= 0; quote = value.indexOf('"', from)) {
+			writer.write(value, from, quote + 1 - from);
+			writer.write('"');
+			from = quote + 1;
+		}
+		writer.write(value, from, value.length() - from);
+		writer.write('"');
+	}
+}
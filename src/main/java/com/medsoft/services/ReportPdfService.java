@@ -0,0 +1,29 @@
+package com.medsoft.services;
+
+import com.medsoft.models.OperationReport;
+import com.medsoft.models.dto.ReportSearchCriteria;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeoutException;
+
+public interface ReportPdfService {
+
+	/** Печать возможна: шрифт для PDF найден при старте. */
+	boolean isAvailable();
+
+	/**
+	 * Печатная форма отчета в PDF.
+	 *
+	 * @throws java.util.concurrent.RejectedExecutionException если очередь печати переполнена
+	 * @throws TimeoutException если отчет не напечатан за {@code reports.pdf.timeout-ms},
+	 *                          считая ожидание в очереди
+	 */
+	byte[] render(OperationReport report) throws IOException, TimeoutException;
+
+	/**
+	 * Пишет в {@code out} ZIP с PDF всех отчетов под фильтрами, старые первыми.
+	 * Возвращает число напечатанных отчетов.
+	 */
+	long renderZip(ReportSearchCriteria criteria, OutputStream out) throws IOException;
+}
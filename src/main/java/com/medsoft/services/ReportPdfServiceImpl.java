@@ -0,0 +1,278 @@
+package com.medsoft.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.models.OperationReport;
+import com.medsoft.models.dto.ReportSearchCriteria;
+import com.medsoft.pdf.ReportPdfRenderer;
+import com.medsoft.pdf.ReportPdfTemplate;
+import com.medsoft.repository.OperationReportRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Печать отчетов в PDF. Шаблон разбирается при старте, файлы шрифтов читаются
+ * в память один раз, а каждый поток печати один раз разбирает их в свой
+ * {@link ReportPdfRenderer}.
+ * <p>
+ * Печать идёт в отдельном пуле из {@code reports.pdf.threads} потоков с низким
+ * приоритетом (по умолчанию четверть ядер), чтобы пакетная печать не отнимала
+ * процессор у распознавания. Пакетная выгрузка держит в работе не больше
+ * {@code 2 * threads} отчетов и пишет ZIP в ответ по мере готовности, в порядке выборки.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReportPdfServiceImpl implements ReportPdfService {
+
+	private static final int BUFFER_BYTES = 64 * 1024;
+	private static final String ERRORS_ENTRY = "errors.txt";
+	private static final long RETRY_DELAY_MS = 20;
+
+	private final OperationReportRepository reportRepository;
+	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
+
+	@Value("${reports.pdf.template:classpath:pdf/operation-report.json}")
+	private Resource templateResource;
+
+	@Value("${reports.pdf.font:/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf}")
+	private String fontPath;
+
+	@Value("${reports.pdf.bold-font:/usr/share/fonts/truetype/dejavu/DejaVuSans-Bold.ttf}")
+	private String boldFontPath;
+
+	@Value("${reports.pdf.threads:0}")
+	private int threads;
+
+	@Value("${reports.pdf.queue-size:256}")
+	private int queueSize;
+
+	@Value("${reports.pdf.timeout-ms:30000}")
+	private long timeoutMs;
+
+	@Value("${reports.pdf.fetch-size:200}")
+	private int fetchSize;
+
+	private ReportPdfTemplate template;
+	private byte[] regularFont;
+	private byte[] boldFont;
+
+	private ThreadPoolExecutor pdfExecutor;
+	private int window;
+	private final List<ReportPdfRenderer> renderers = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<ReportPdfRenderer> renderer = ThreadLocal.withInitial(this::createRenderer);
+
+	@PostConstruct
+	public void init() throws IOException {
+		try (InputStream in = templateResource.getInputStream()) {
+			template = ReportPdfTemplate.load(in, objectMapper);
+		}
+		regularFont = readFont(fontPath);
+		boldFont = readFont(boldFontPath);
+
+		int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+		window = poolSize * 2;
+		AtomicInteger counter = new AtomicInteger();
+		pdfExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize), runnable -> {
+			Thread thread = new Thread(runnable, "report-pdf-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+
+		Gauge.builder("reports.pdf.queue", pdfExecutor, executor -> executor.getQueue().size())
+				.description("Отчеты, ожидающие печати в PDF")
+				.register(meterRegistry);
+
+		log.info("Печать PDF: потоков {}, очередь {}, шрифт {}", poolSize, queueSize, fontPath);
+	}
+
+	private byte[] readFont(String path) throws IOException {
+		Path file = Path.of(path);
+		if (!Files.isReadable(file)) {
+			log.warn("Шрифт для PDF не найден: {}. Печать отчетов недоступна", path);
+			return null;
+		}
+		return Files.readAllBytes(file);
+	}
+
+	private ReportPdfRenderer createRenderer() {
+		if (regularFont == null) {
+			throw new IllegalStateException("Шрифт для PDF не найден: " + fontPath);
+		}
+		try {
+			ReportPdfRenderer created = new ReportPdfRenderer(template, regularFont, boldFont);
+			renderers.add(created);
+			return created;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Не удалось разобрать шрифт " + fontPath, e);
+		}
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return regularFont != null;
+	}
+
+	@Override
+	public byte[] render(OperationReport report) throws IOException, TimeoutException {
+		Future<byte[]> future = submit(report);
+		try {
+			return await(future);
+		} finally {
+			future.cancel(true);
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long renderZip(ReportSearchCriteria criteria, OutputStream out) throws IOException {
+		long start = System.currentTimeMillis();
+		long rendered = 0;
+		List<Long> failed = new ArrayList<>();
+		Deque<Pending> pending = new ArrayDeque<>(window);
+
+		ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_BYTES), StandardCharsets.UTF_8);
+		// Потоки страниц в PDF уже сжаты, сильнее сжимать нет смысла
+		zip.setLevel(Deflater.BEST_SPEED);
+
+		try (Stream<OperationReport> reports = reportRepository.stream(criteria, fetchSize)) {
+			Iterator<OperationReport> iterator = reports.iterator();
+			while (iterator.hasNext()) {
+				OperationReport report = iterator.next();
+				if (pending.size() >= window) {
+					rendered += writeEntry(zip, pending.poll(), failed);
+				}
+				long deadline = System.currentTimeMillis() + timeoutMs;
+				while (true) {
+					try {
+						pending.add(new Pending(report.getId(), submit(report)));
+						break;
+					} catch (RejectedExecutionException e) {
+						// Очередь занята другими заданиями: дописываем свой самый старый отчет
+						// или, если ждать нечего, ненадолго уступаем очередь
+						if (!pending.isEmpty()) {
+							rendered += writeEntry(zip, pending.poll(), failed);
+						} else if (System.currentTimeMillis() < deadline) {
+							pause();
+						} else {
+							throw e;
+						}
+					}
+				}
+			}
+			while (!pending.isEmpty()) {
+				rendered += writeEntry(zip, pending.poll(), failed);
+			}
+
+			if (!failed.isEmpty()) {
+				zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+				StringBuilder text = new StringBuilder("Не удалось напечатать отчеты:\n");
+				failed.forEach(id -> text.append(id).append('\n'));
+				zip.write(text.toString().getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+			zip.finish();
+			zip.flush();
+		} finally {
+			pending.forEach(entry -> entry.future().cancel(true));
+		}
+
+		log.info("Напечатано отчетов в ZIP: {}, с ошибкой: {}, за {} мс",
+				rendered, failed.size(), System.currentTimeMillis() - start);
+		return rendered;
+	}
+
+	private record Pending(Long reportId, Future<byte[]> future) {
+	}
+
+	private int writeEntry(ZipOutputStream zip, Pending entry, List<Long> failed) throws IOException {
+		byte[] pdf;
+		try {
+			pdf = await(entry.future());
+		} catch (InterruptedIOException e) {
+			throw e;
+		} catch (IOException | TimeoutException | RuntimeException e) {
+			log.error("Ошибка печати отчета {}: {}", entry.reportId(), e.getMessage(), e);
+			failed.add(entry.reportId());
+			return 0;
+		}
+
+		zip.putNextEntry(new ZipEntry("operation-report-" + entry.reportId() + ".pdf"));
+		zip.write(pdf);
+		zip.closeEntry();
+		return 1;
+	}
+
+	private static void pause() throws InterruptedIOException {
+		try {
+			Thread.sleep(RETRY_DELAY_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Печать PDF прервана");
+		}
+	}
+
+	private Future<byte[]> submit(OperationReport report) {
+		return pdfExecutor.submit(() -> renderer.get().render(report));
+	}
+
+	private byte[] await(Future<byte[]> future) throws IOException, TimeoutException {
+		try {
+			return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Печать PDF прервана");
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new TimeoutException("Печать PDF не уложилась в " + timeoutMs + " мс");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException io) {
+				throw io;
+			}
+			if (cause instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	@PreDestroy
+	public void cleanup() {
+		pdfExecutor.shutdownNow();
+		try {
+			pdfExecutor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (ReportPdfRenderer pdfRenderer : renderers) {
+			try {
+				pdfRenderer.close();
+			} catch (IOException e) {
+				log.warn("Ошибка закрытия шрифтов PDF: {}", e.getMessage());
+			}
+		}
+	}
+}
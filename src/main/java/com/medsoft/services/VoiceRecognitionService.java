@@ -1,7 +1,31 @@
 package com.medsoft.services;
 
+import com.medsoft.audio.StreamFormat;
+
+import java.util.List;
+import java.util.Map;
+
 public interface VoiceRecognitionService {
-    void startContinuousRecognition();
-    void stopContinuousRecognition();
+    String startSession();
+    /** Сессия для клиента, присылающего звук в формате {@code format}. */
+    String startSession(StreamFormat format);
+    /**
+     * @param maxDurationMs срок сессии, 0 — значение {@code voice.session.max-duration-ms}
+     */
+    String startMicrophoneSession(long maxDurationMs);
+    void stopSession(String sessionId);
+
+    /** Открытые сессии с их сроками. */
+    List<Map<String, Object>> listSessions();
+    /** {@code false}, если кадр не принят: декодер не успевает или сессия уже закрыта. */
+    boolean feedAudio(String sessionId, byte[] data, int offset, int length);
+    /** Сессия открыта и принимает звук. */
+    boolean isSessionOpen(String sessionId);
+    Map<String, Object> getSessionStats(String sessionId);
     boolean isCommand(String text);
+
+    Map<String, Object> getModelInfo();
+
+    /** Загружает модель в фоне; новые сессии перейдут на неё после загрузки. */
+    void reloadModel(String modelPath);
 }
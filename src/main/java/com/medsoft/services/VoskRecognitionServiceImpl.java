@@ -1,308 +1,588 @@
 package com.medsoft.services;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.audio.PolyphaseResampler;
+import com.medsoft.audio.SegmentedAudioWriter;
+import com.medsoft.audio.StreamFormat;
+import com.medsoft.audio.VoiceActivityGate;
+import com.medsoft.models.PartialResult;
+import com.medsoft.models.RecognizedWord;
 import com.medsoft.models.RecognitionResult;
+import com.medsoft.recognition.*;
 import com.medsoft.websocket.VoiceWebSocketHandler;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import javax.sound.sampled.*;
-import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Function;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "voice.backend", havingValue = "vosk", matchIfMissing = true)
 public class VoskRecognitionServiceImpl implements VoiceRecognitionService {
 
-    @Value("${vosk.model.path}")
-    private String modelPath;
-
-    private org.vosk.Recognizer recognizer;
-    private org.vosk.Model model;
-    private TargetDataLine microphone;
-    private ExecutorService recognitionExecutor;
-    private volatile boolean isListening = false;
+    private final RecognizerPool recognizerPool;
+    private final CommandMatcher commandMatcher;
+    private final CommandVocabulary commandVocabulary;
+    private final VoskResultDecoder resultDecoder;
+    private final RecognitionResultFactory resultFactory;
 	private final VoiceWebSocketHandler voiceWebSocketHandler;
+	private final RecognitionMetrics metrics;
+	private final ReportDraftService reportDraftService;
+	private final SessionLifecycleScheduler lifecycleScheduler;
+	private final AudioArchiveService audioArchive;
+
+    private static final int FRAME_BYTES = 4096;
+    /** Запас на одно слово команды при расчёте окна распознавателя команд. */
+    private static final int COMMAND_WORD_MS = 700;
+    private static final String UNKNOWN_WORD = "[unk]";
+    private static final double COMMAND_WINDOW_TTL_SECONDS = 30;
+
+    @Value("${voice.audio.ring-buffer-bytes:262144}")
+    private int ringBufferBytes;
+
+    @Value("${voice.audio.max-frame-bytes:32768}")
+    private int maxFrameBytes;
+
+    @Value("${voice.session.max-duration-ms:14400000}")
+    private long maxDurationMs;
+
+    @Value("${voice.session.idle-timeout-ms:120000}")
+    private long idleTimeoutMs;
+
+    @Value("${voice.vad.enabled:true}")
+    private boolean vadEnabled;
+
+    @Value("${voice.vad.min-energy:150}")
+    private int vadMinEnergy;
+
+    @Value("${voice.vad.energy-ratio:3.0}")
+    private double vadEnergyRatio;
+
+    @Value("${voice.vad.fricative-energy-ratio:1.5}")
+    private double vadFricativeEnergyRatio;
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    @Value("${voice.vad.fricative-zero-crossings:0.3}")
+    private double vadFricativeZeroCrossings;
 
-    private static final Set<String> COMMANDS = new HashSet<>(Arrays.asList(
-            "пациент", "врач", "диагноз", "операция", "заполняющий", "табельный",
-            "следующее", "предыдущее", "готово", "завершить",
-            "очистить", "отмена", "создать pdf", "отправить отчет",
-            "поле диагноз", "поле операция", "поле пациент", "поле врач"
-    ));
+    @Value("${voice.vad.hangover-ms:400}")
+    private int vadHangoverMs;
 
-    private static final Map<String, String> FIELD_COMMANDS = Map.of(
-            "пациент", "patientField",
-            "врач", "doctorField",
-            "диагноз", "diagnosisField",
-            "операция", "operationField",
-            "заполняющий", "fillerField",
-            "табельный", "personalNumberField"
-    );
+    @Value("${voice.vad.pre-roll-ms:300}")
+    private int vadPreRollMs;
+
+    @Value("${voice.partial.enabled:true}")
+    private boolean partialResultsEnabled;
+
+    @Value("${voice.partial.min-interval-ms:250}")
+    private long partialMinIntervalMs;
+
+    private String commandGrammar;
+    private int maxCommandWords;
+    private int commandWindowBytes;
+
+    private final Map<String, RecognitionSession> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService captureExecutor = Executors.newCachedThreadPool();
 
     @PostConstruct
     public void init() {
-        try {
-            log.info("Инициализация модели Vosk из: {}", modelPath);
-            model = new org.vosk.Model(modelPath);
-            recognizer = new org.vosk.Recognizer(model, 16000.0f);
+        metrics.bindSessions(sessions);
+        metrics.bindPool(recognizerPool);
+        lifecycleScheduler.addExpiryListener((sessionId, reason) -> stopSession(sessionId));
+        commandGrammar = commandVocabulary.grammar();
+        maxCommandWords = commandVocabulary.maxPhraseWords();
+        long windowMs = commandVocabulary.getGrammarWindowMs() > 0
+                ? commandVocabulary.getGrammarWindowMs()
+                : (long) maxCommandWords * COMMAND_WORD_MS + vadPreRollMs;
+        commandWindowBytes = (int) (RecognizerPool.SAMPLE_RATE * 2 * windowMs / 1000) & ~1;
+    }
 
-            recognizer.setWords(true);
-            recognizer.setPartialWords(true);
+    @Override
+    public String startSession() {
+        return startSession(StreamFormat.RECOGNIZER);
+    }
 
-            recognitionExecutor = Executors.newSingleThreadExecutor();
-            log.info("Сервис распознавания речи инициализирован");
+    @Override
+    public String startSession(StreamFormat format) {
+        return openSession(maxDurationMs, format).getId();
+    }
 
-        } catch (Exception e) {
-            log.error("Ошибка инициализации Vosk: {}", e.getMessage(), e);
-            throw new RuntimeException("Не удалось инициализировать Vosk", e);
+    private RecognitionSession openSession(long maxDurationMs, StreamFormat format) {
+        PolyphaseResampler resampler = format.isRecognizerNative()
+                ? null
+                : new PolyphaseResampler(format, (int) RecognizerPool.SAMPLE_RATE, maxFrameBytes);
+        VoiceActivityGate voiceGate = vadEnabled
+                ? new VoiceActivityGate((int) RecognizerPool.SAMPLE_RATE, FRAME_BYTES, vadMinEnergy, vadEnergyRatio,
+                        vadFricativeEnergyRatio, vadFricativeZeroCrossings, vadHangoverMs, vadPreRollMs)
+                : null;
+        String sessionId = UUID.randomUUID().toString();
+        RecognitionSession session = new RecognitionSession(
+                sessionId, recognizerPool.acquire(), ringBufferBytes, voiceGate, audioArchive.open(sessionId),
+                resampler);
+
+        if (commandVocabulary.isGrammarEnabled()) {
+            try {
+                session.setCommandRecognizer(recognizerPool.borrow(commandGrammar));
+                session.setCommandBudget(commandWindow(session));
+            } catch (Exception e) {
+                log.warn("Сессия {} работает без грамматики команд: {}", session.getId(), e.getMessage());
+            }
         }
+
+        sessions.put(session.getId(), session);
+        metrics.sessionOpened(session);
+        lifecycleScheduler.track(session.getId(), maxDurationMs, idleTimeoutMs, session::getLastCapturedAt);
+        recognizerPool.decodeExecutor().submit(() -> decodeLoop(session));
+
+        log.info("Сессия распознавания {} запущена, формат {}, свободно слотов: {}",
+                session.getId(), format, recognizerPool.available());
+        return session;
     }
 
     @Override
-    public void startContinuousRecognition() {
-        if (isListening) {
-            log.warn("Распознавание уже запущено");
-            return;
-        }
-
+    public String startMicrophoneSession(long maxDurationMs) {
+        TargetDataLine microphone;
         try {
-            AudioFormat format = new AudioFormat(16000, 16, 1, true, false);
+            AudioFormat format = new AudioFormat(RecognizerPool.SAMPLE_RATE, 16, 1, true, false);
             DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
 
             if (!AudioSystem.isLineSupported(info)) {
-                log.error("Микрофон не поддерживается");
-                return;
+                throw new IllegalStateException("Микрофон не поддерживается");
             }
 
             microphone = (TargetDataLine) AudioSystem.getLine(info);
             microphone.open(format);
-            microphone.start();
-
-            isListening = true;
-            recognitionExecutor.submit(this::continuousRecognitionLoop);
-
-            log.info("Непрерывное распознавание запущено");
-
         } catch (LineUnavailableException e) {
             log.error("Ошибка доступа к микрофону: {}", e.getMessage());
+            throw new IllegalStateException("Микрофон недоступен", e);
         }
+
+        RecognitionSession session;
+        try {
+            session = openSession(maxDurationMs > 0 ? maxDurationMs : this.maxDurationMs, StreamFormat.RECOGNIZER);
+        } catch (RuntimeException e) {
+            microphone.close();
+            throw e;
+        }
+
+        session.setMicrophone(microphone);
+        microphone.start();
+        captureExecutor.submit(() -> captureLoop(session, microphone));
+
+        log.info("Непрерывное распознавание с микрофона запущено, сессия {}", session.getId());
+        return session.getId();
     }
 
     @Override
-    public void stopContinuousRecognition() {
-        isListening = false;
+    public void stopSession(String sessionId) {
+        lifecycleScheduler.cancel(sessionId);
+
+        RecognitionSession session = sessions.remove(sessionId);
+        if (session == null) {
+            log.warn("Сессия распознавания {} не найдена", sessionId);
+            return;
+        }
+
+        session.close();
+
+        TargetDataLine microphone = session.getMicrophone();
         if (microphone != null) {
             microphone.stop();
             microphone.close();
         }
-        log.info("Непрерывное распознавание остановлено");
+        log.info("Сессия распознавания {} остановлена", sessionId);
     }
 
     @Override
-    public boolean isCommand(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            return false;
-        }
+    public List<Map<String, Object>> listSessions() {
+        return lifecycleScheduler.snapshot();
+    }
 
-        String lowerText = text.toLowerCase();
+    @Override
+    public boolean feedAudio(String sessionId, byte[] data, int offset, int length) {
+        RecognitionSession session = sessions.get(sessionId);
+        return session != null && offer(session, data, offset, length);
+    }
 
-        for (String command : COMMANDS) {
-            if (lowerText.contains(command)) {
-                return true;
-            }
+    private boolean offer(RecognitionSession session, byte[] data, int offset, int length) {
+        if (session.offer(data, offset, length)) {
+            return true;
         }
+        metrics.frameDropped();
+        return false;
+    }
 
-        return lowerText.matches(".*(поле|заполни|введи|очисти|удали|готово|заверши|отправь|создай).*");
+    @Override
+    public boolean isSessionOpen(String sessionId) {
+        return sessions.containsKey(sessionId);
     }
 
-	private void continuousRecognitionLoop() {
-		byte[] buffer = new byte[4096];
+    @Override
+    public Map<String, Object> getSessionStats(String sessionId) {
+        RecognitionSession session = sessions.get(sessionId);
+        return session != null ? session.stats() : null;
+    }
+
+    @Override
+    public boolean isCommand(String text) {
+        return commandMatcher.isCommand(text);
+    }
+
+    @Override
+    public Map<String, Object> getModelInfo() {
+        return recognizerPool.modelInfo();
+    }
 
-		while (isListening) {
-			try {
-				long startTime = System.currentTimeMillis();
+    @Override
+    public void reloadModel(String modelPath) {
+        if (!Files.isDirectory(Path.of(modelPath))) {
+            throw new IllegalArgumentException("Каталог модели не найден: " + modelPath);
+        }
+        recognizerPool.loadModel(modelPath);
+    }
 
-				int bytesRead = microphone.read(buffer, 0, buffer.length);
+	private void captureLoop(RecognitionSession session, TargetDataLine microphone) {
+		byte[] buffer = new byte[4096];
 
-				if (bytesRead > 0) {
-					if (recognizer.acceptWaveForm(buffer, bytesRead)) {
-						String resultJson = recognizer.getResult();
-						String text = extractTextFromJson(resultJson);
+		while (session.isActive()) {
+			int bytesRead = microphone.read(buffer, 0, buffer.length);
 
-						if (!text.isEmpty()) {
-							long processingTime =
-									System.currentTimeMillis() - startTime;
+			if (bytesRead > 0 && !offer(session, buffer, 0, bytesRead)
+					&& session.getAudio().overruns() % 100 == 1) {
+				log.warn("Сессия {}: декодер не успевает, переполнений буфера: {}",
+						session.getId(), session.getAudio().overruns());
+			}
+		}
+	}
 
-							log.info("Распознано: {}", text);
+	private void decodeLoop(RecognitionSession session) {
+		org.vosk.Recognizer recognizer = session.getRecognizer();
+		VoiceActivityGate voiceGate = session.getVoiceGate();
+		SegmentedAudioWriter archive = session.getArchive();
+		byte[] frame = new byte[FRAME_BYTES];
+
+		try {
+			while (session.isActive() && !Thread.currentThread().isInterrupted()) {
+				try {
+					int bytesRead = session.read(frame, 100);
+					if (bytesRead == 0) {
+						continue;
+					}
 
-							RecognitionResult result =
-									createRecognitionResult(text, processingTime);
+					long capturedAt = session.capturedAtOfLastRead();
+					long sourceOffset = session.advanceSource(bytesRead);
+					if (archive != null) {
+						audioArchive.append(archive, sourceOffset, frame, bytesRead);
+					}
+					if (voiceGate == null) {
+						decode(session, frame, bytesRead, capturedAt);
+						continue;
+					}
 
-							if (result.isCommand()) {
-								log.info(
-										"Выполняется команда: {}",
-										result.getRecognizedCommand()
-								);
-							} else {
-								log.info("Данные для поля: {}", text);
-							}
+					int voicedLength = voiceGate.process(frame, bytesRead);
+					metrics.audioSkipped(voiceGate.skippedInLastCall());
 
-							voiceWebSocketHandler.broadcast(result);
-						}
+					int speechEnd = voiceGate.speechEndOffset();
+					byte[] voiced = voiceGate.output();
+					if (speechEnd < 0) {
+						decode(session, voiced, voicedLength, capturedAt);
+						continue;
 					}
+
+					// Распознаватель не увидит паузу после фразы, поэтому фраза
+					// закрывается явно, а начало следующей подаётся отдельно
+					decode(session, voiced, speechEnd, capturedAt);
+					finishUtterance(session, capturedAt);
+					System.arraycopy(voiced, speechEnd, voiced, 0, voicedLength - speechEnd);
+					decode(session, voiced, voicedLength - speechEnd, capturedAt);
+
+				} catch (Exception e) {
+					log.error("Ошибка в цикле распознавания: {}", e.getMessage(), e);
 				}
+			}
 
-				Thread.sleep(50);
+			finishUtterance(session, session.capturedAtOfLastRead());
+		} finally {
+			metrics.sessionClosed(session);
+			voiceWebSocketHandler.sessionFinished(session.getId());
+			if (archive != null) {
+				audioArchive.close(archive);
+			}
+			recognizerPool.release(recognizer);
+			if (session.getCommandRecognizer() != null) {
+				recognizerPool.release(session.getCommandRecognizer());
+			}
+		}
+	}
 
-			} catch (Exception e) {
-				log.error("Ошибка в цикле распознавания: {}", e.getMessage(), e);
+	private void finishUtterance(RecognitionSession session, long capturedAt) {
+		closeCommandWindow(session, capturedAt);
+		publishResult(session, decodeResult(resultDecoder::finalResult, session.getRecognizer()), capturedAt);
+	}
+
+	/**
+	 * Распознаватель команд слушает только начало фразы — столько звука, сколько
+	 * нужно на самую длинную команду. Дальше фраза — диктовка, и второй
+	 * {@code acceptWaveForm} на каждый кадр был бы лишней работой декодера.
+	 */
+	private void feedCommandRecognizer(RecognitionSession session, byte[] audio, int length, long capturedAt) {
+		org.vosk.Recognizer commandRecognizer = session.getCommandRecognizer();
+		if (commandRecognizer == null) {
+			return;
+		}
+		int budget = session.getCommandBudget();
+		int fed = Math.min(length, budget);
+		if (fed > 0) {
+			long commandStart = System.nanoTime();
+			boolean commandEnd = commandRecognizer.acceptWaveForm(audio, fed);
+			metrics.recordCommandAccept(System.nanoTime() - commandStart);
+			if (commandEnd) {
+				publishCommand(session, decodeResult(resultDecoder::result, commandRecognizer), capturedAt);
+			}
+
+			session.setCommandBudget(budget - fed);
+			if (budget == fed) {
+				publishCommand(session, decodeResult(resultDecoder::finalResult, commandRecognizer), capturedAt);
 			}
 		}
+		session.skipCommandAudio(length - fed);
 	}
 
-	private String fixEncoding(String text) {
-        if (text == null || text.isEmpty()) {
-            return text;
-        }
+	/** Закрывает окно команд законченной фразы и открывает новое для следующей. */
+	private void closeCommandWindow(RecognitionSession session, long capturedAt) {
+		org.vosk.Recognizer commandRecognizer = session.getCommandRecognizer();
+		if (commandRecognizer == null) {
+			return;
+		}
+		int budget = session.getCommandBudget();
+		if (budget > 0 && budget < commandWindow(session)) {
+			publishCommand(session, decodeResult(resultDecoder::finalResult, commandRecognizer), capturedAt);
+		}
+		session.setCommandBudget(commandWindow(session));
+	}
 
-        Pattern utf8Pattern = Pattern.compile("[РВСТУФХЦЧШЩЪЫЬЭЮЯ]+");
-        Matcher matcher = utf8Pattern.matcher(text);
+	/**
+	 * Без детектора речи фраза начинается не с речи, а с тишины после прошлой,
+	 * и короткое окно может закончиться раньше команды: тогда слушается весь поток.
+	 */
+	private int commandWindow(RecognitionSession session) {
+		return session.getVoiceGate() != null ? commandWindowBytes : Integer.MAX_VALUE;
+	}
 
-        if (matcher.find() && text.length() > matcher.group().length() * 2) {
-            try {
-                byte[] bytes = text.getBytes("Windows-1251");
-                String decoded = new String(bytes, "UTF-8");
-
-                if (decoded.matches(".*[А-Яа-яЁё].*") && !decoded.contains("Р")) {
-                    return decoded;
-                }
-            } catch (UnsupportedEncodingException e) {
-                log.warn("Ошибка перекодировки: {}", e.getMessage());
-            }
-        }
+	private void decode(RecognitionSession session, byte[] audio, int length, long capturedAt) {
+		if (length == 0) {
+			return;
+		}
+		feedCommandRecognizer(session, audio, length, capturedAt);
+
+		org.vosk.Recognizer recognizer = session.getRecognizer();
+		long decodeStart = System.nanoTime();
+		boolean endOfUtterance = recognizer.acceptWaveForm(audio, length);
+		long decodeTime = System.nanoTime() - decodeStart;
+
+		session.addDecoded(length, decodeTime);
+		metrics.recordAcceptWaveform(decodeTime);
+
+		if (endOfUtterance) {
+			closeCommandWindow(session, capturedAt);
+			publishResult(session, decodeResult(resultDecoder::result, recognizer), capturedAt);
+		} else if (partialResultsEnabled) {
+			long now = System.currentTimeMillis();
+			if (now - session.getLastPartialAt() >= partialMinIntervalMs) {
+				publishPartial(session, decodeResult(resultDecoder::partialResult, recognizer), now);
+			}
+		}
+	}
 
-        return text;
-    }
+	private VoskResult decodeResult(Function<org.vosk.Recognizer, VoskResult> getter,
+									org.vosk.Recognizer recognizer) {
+		long start = System.nanoTime();
+		VoskResult result = getter.apply(recognizer);
+		metrics.recordGetResult(System.nanoTime() - start);
+		return result;
+	}
 
-    private String extractTextFromJson(String json) {
-        try {
-            JsonNode jsonNode = objectMapper.readTree(json);
-            String text = jsonNode.get("text").asText();
+	private void publishPartial(RecognitionSession session, VoskResult partialResult, long now) {
+		session.setLastPartialAt(now);
 
-            if (text == null || text.trim().isEmpty()) {
-                return "";
-            }
+		String partial = partialResult.getText();
+		String previous = session.getLastPartial();
 
-            return fixEncoding(text);
+		if (partial.equals(previous)) {
+			return;
+		}
 
-        } catch (Exception e) {
-            log.error("Ошибка извлечения текста из JSON: {} | JSON: {}", e.getMessage(), json);
-            return "";
-        }
-    }
+		int offset = commonWordPrefix(previous, partial);
+		session.setLastPartial(partial);
 
-    private RecognitionResult createRecognitionResult(String text, long processingTime) {
-        if (text == null || text.trim().isEmpty()) {
-            return new RecognitionResult("", false, "", 0.0, processingTime);
-        }
+		voiceWebSocketHandler.publish(
+				new PartialResult(session.getId(), offset, partial.substring(offset)));
+	}
 
-        boolean isCmd = isCommand(text);
-        String commandType = isCmd ? identifyCommandType(text) : "";
-        double confidence = calculateConfidence(text);
+	private static int commonWordPrefix(String previous, String current) {
+		int limit = Math.min(previous.length(), current.length());
+		int i = 0;
+		while (i < limit && previous.charAt(i) == current.charAt(i)) {
+			i++;
+		}
+		if (i == limit && (i == previous.length() || previous.charAt(i) == ' ')
+				&& (i == current.length() || current.charAt(i) == ' ')) {
+			return i;
+		}
+		while (i > 0 && current.charAt(i - 1) != ' ') {
+			i--;
+		}
+		return i;
+	}
 
-        return new RecognitionResult(mapDigitsInText(text), isCmd, commandType, confidence, processingTime);
-    }
+	/**
+	 * @param capturedAt {@link System#nanoTime()} захвата последнего кадра фразы;
+	 *                   от него считается {@code processingTimeMs} результата
+	 */
+	private void publishResult(RecognitionSession session, VoskResult voskResult, long capturedAt) {
+		session.setLastPartial("");
 
-    private String identifyCommandType(String text) {
-        String lowerText = text.toLowerCase();
-
-        if (lowerText.contains("поле")) {
-            return "FIELD_SWITCH";
-        } else if (lowerText.contains("следующее")) {
-            return "NEXT_FIELD";
-        } else if (lowerText.contains("предыдущее")) {
-            return "PREVIOUS_FIELD";
-        } else if (lowerText.contains("готово") || lowerText.contains("заверши")) {
-            return "COMPLETE";
-        } else if (lowerText.contains("создай pdf") || lowerText.contains("создать pdf")) {
-            return "GENERATE_PDF";
-        } else if (lowerText.contains("отправь") || lowerText.contains("отправить")) {
-            return "SEND_EMAIL";
-        } else if (lowerText.contains("очисти") || lowerText.contains("очистить")) {
-            return "CLEAR";
-        }
+		if (voskResult.isEmpty()) {
+			return;
+		}
 
-        for (Map.Entry<String, String> entry : FIELD_COMMANDS.entrySet()) {
-            if (lowerText.contains(entry.getKey())) {
-                return "FIELD_" + entry.getValue().toUpperCase();
-            }
-        }
+		long postProcessingStart = System.nanoTime();
+		CommandMatch command;
+		if (session.getCommandRecognizer() == null) {
+			command = commandMatcher.match(voskResult.getText());
+		} else {
+			// Команды распознаёт грамматика; из диктовки убираем уже выполненные,
+			// а сами команды ищем только в коротких фразах, которые грамматика пропустила
+			voskResult = withoutCommandWords(session, voskResult);
+			if (voskResult.isEmpty()) {
+				return;
+			}
+			command = voskResult.getWords().size() <= maxCommandWords
+					? commandMatcher.match(voskResult.getText())
+					: CommandMatch.NONE;
+			if (command.isCommand()) {
+				session.getCommandWindows().addLast(new double[]{voskResult.startTime(), voskResult.endTime()});
+			}
+		}
 
-        return "UNKNOWN";
-    }
+		publish(session, voskResult, command, capturedAt, postProcessingStart);
+	}
 
-    private double calculateConfidence(String text) {
-        if (text.length() < 2) return 0.1;
-        if (text.split(" ").length > 5) return 0.9;
-        return 0.5 + (text.length() * 0.05);
-    }
+	private void publishCommand(RecognitionSession session, VoskResult voskResult, long capturedAt) {
+		voskResult = voskResult.shifted(session.commandTimeShift());
+		if (voskResult.isEmpty() || voskResult.getText().contains(UNKNOWN_WORD)
+				|| voskResult.averageConfidence() < commandVocabulary.getGrammarMinConfidence()) {
+			return;
+		}
 
-    @PreDestroy
-    public void cleanup() {
-        stopContinuousRecognition();
+		long postProcessingStart = System.nanoTime();
+		CommandMatch command = commandMatcher.match(voskResult.getText());
+		if (!command.isCommand() || overlapsCommand(session, voskResult)) {
+			return;
+		}
 
-        if (recognitionExecutor != null) {
-            recognitionExecutor.shutdown();
-            try {
-                if (!recognitionExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    recognitionExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                recognitionExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
+		session.getCommandWindows().addLast(new double[]{voskResult.startTime(), voskResult.endTime()});
+		publish(session, voskResult, command, capturedAt, postProcessingStart);
+	}
 
-        if (recognizer != null) {
-            recognizer.close();
-        }
+	private void publish(RecognitionSession session, VoskResult voskResult, CommandMatch command,
+						 long capturedAt, long postProcessingStart) {
+		String text = voskResult.getText();
+
+		log.info("Распознано [{}]: {}", session.getId(), text);
+
+		RecognitionResult result = resultFactory.create(session.getId(), voskResult, 0, command);
+		long now = System.nanoTime();
+		metrics.recordPostProcessing(now - postProcessingStart);
+
+		long latency = Math.max(0, now - capturedAt);
+		metrics.recordCaptureToFinal(latency);
+		result.setProcessingTimeMs(TimeUnit.NANOSECONDS.toMillis(latency));
+		result.setAudioStart(session.getTimeMap().toSource(voskResult.startTime()));
+		result.setAudioEnd(session.getTimeMap().toSource(voskResult.endTime()));
+
+		if (result.isCommand()) {
+			log.info(
+					"Выполняется команда: {}",
+					result.getRecognizedCommand()
+			);
+		} else {
+			log.info("Данные для поля: {}", text);
+		}
 
-        if (model != null) {
-            model.close();
-        }
+		voiceWebSocketHandler.publish(result);
+		reportDraftService.apply(result);
+	}
 
-        log.info("Сервис распознавания речи остановлен");
-    }
+	private static boolean overlapsCommand(RecognitionSession session, VoskResult result) {
+		double start = result.startTime();
+		double end = result.endTime();
+		for (double[] window : session.getCommandWindows()) {
+			if (window[0] < end && start < window[1]) {
+				return true;
+			}
+		}
+		return false;
+	}
 
-    private String mapDigitsInText(String text) {
-        Map<String, String> digitMap = new HashMap<>();
-        digitMap.put("один", "1");
-        digitMap.put("два", "2");
-        digitMap.put("три", "3");
-        digitMap.put("четыре", "4");
-        digitMap.put("пять", "5");
-        digitMap.put("шесть", "6");
-        digitMap.put("семь", "7");
-        digitMap.put("восемь", "8");
-        digitMap.put("девять", "9");
-        digitMap.put("ноль", "0");
-
-        String result = text;
-        for (Map.Entry<String, String> entry : digitMap.entrySet()) {
-            result = result.replaceAll("(?i)" + Pattern.quote(entry.getKey()), entry.getValue());
-        }
+	/**
+	 * Убирает из результата диктовки слова, попавшие в интервалы выполненных команд,
+	 * и забывает интервалы, которые остались далеко позади.
+	 */
+	private static VoskResult withoutCommandWords(RecognitionSession session, VoskResult result) {
+		Deque<double[]> windows = session.getCommandWindows();
+		while (!windows.isEmpty() && windows.peekFirst()[1] < result.startTime() - COMMAND_WINDOW_TTL_SECONDS) {
+			windows.pollFirst();
+		}
+		if (windows.isEmpty()) {
+			return result;
+		}
+
+		List<RecognizedWord> kept = new ArrayList<>(result.getWords().size());
+		for (RecognizedWord word : result.getWords()) {
+			double middle = (word.getStart() + word.getEnd()) / 2;
+			boolean covered = false;
+			for (double[] window : windows) {
+				if (middle >= window[0] && middle <= window[1]) {
+					covered = true;
+					break;
+				}
+			}
+			if (!covered) {
+				kept.add(word);
+			}
+		}
 
-        return result;
+		if (kept.size() == result.getWords().size()) {
+			return result;
+		}
+		if (kept.isEmpty()) {
+			return VoskResult.EMPTY;
+		}
+
+		StringBuilder text = new StringBuilder();
+		for (RecognizedWord word : kept) {
+			if (!text.isEmpty()) {
+				text.append(' ');
+			}
+			text.append(word.getWord());
+		}
+		return new VoskResult(text.toString(), kept);
+	}
+
+    @PreDestroy
+    public void cleanup() {
+        sessions.keySet().forEach(this::stopSession);
+        captureExecutor.shutdownNow();
+
+        log.info("Сервис распознавания речи остановлен");
     }
 }
\ No newline at end of file
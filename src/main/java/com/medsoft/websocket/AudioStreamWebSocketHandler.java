@@ -0,0 +1,179 @@
+package com.medsoft.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.audio.StreamFormat;
+import com.medsoft.recognition.RecognitionCapacityException;
+import com.medsoft.recognition.SessionLifecycleScheduler;
+import com.medsoft.services.VoiceRecognitionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Принимает от клиента поток PCM в бинарных кадрах и передаёт его в распознаватель
+ * сессии диктовки. Формат задаётся параметрами подключения
+ * {@code /ws/audio?sampleRate=48000&channels=2&encoding=f32le}, по умолчанию 16 кГц,
+ * 16 бит, моно; всё остальное приводится к нему на сервере. Принятый формат
+ * возвращается в первом сообщении. Бинарный кадр должен содержать целое число
+ * отсчётов всех каналов, иначе сокет закрывается с {@code BAD_DATA}: обрезанный
+ * отсчёт сдвинул бы весь дальнейший звук. Если декодер не успевает, кадры отбрасываются,
+ * а клиент получает уведомление не чаще раза в секунду. Когда сессия закрывается
+ * по сроку или простою, сокет закрывается с {@code GOING_AWAY} и причиной.
+ */
+@Component
+@Slf4j
+public class AudioStreamWebSocketHandler extends BinaryWebSocketHandler {
+
+	private static final String DICTATION_SESSION = "dictationSessionId";
+	private static final String DROPPED_FRAMES = "droppedFrames";
+	private static final String LAST_NOTIFIED = "lastBackpressureNotice";
+	private static final String FRAME_BYTES = "bytesPerFrame";
+	private static final long NOTICE_INTERVAL_MS = 1000;
+
+	private final VoiceRecognitionService voiceRecognitionService;
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	/** Открытые аудиопотоки по сессии диктовки, чтобы закрыть их по таймеру сессии. */
+	private final Map<String, WebSocketSession> streams = new ConcurrentHashMap<>();
+
+	public AudioStreamWebSocketHandler(VoiceRecognitionService voiceRecognitionService,
+									   SessionLifecycleScheduler lifecycleScheduler) {
+		this.voiceRecognitionService = voiceRecognitionService;
+		lifecycleScheduler.addExpiryListener((sessionId, reason) ->
+				closeStream(sessionId, CloseStatus.GOING_AWAY.withReason("session expired: " + reason)));
+	}
+
+	@Override
+	public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+		StreamFormat format;
+		try {
+			format = requestedFormat(session.getUri());
+		} catch (IllegalArgumentException e) {
+			log.warn("Аудиопоток {} отклонён: {}", session.getId(), e.getMessage());
+			session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+			return;
+		}
+
+		String sessionId;
+		try {
+			sessionId = voiceRecognitionService.startSession(format);
+		} catch (RecognitionCapacityException e) {
+			log.warn("Аудиопоток {} отклонён: {}", session.getId(), e.getMessage());
+			session.close(CloseStatus.SERVICE_OVERLOAD.withReason("recognizer pool is full"));
+			return;
+		}
+
+		session.getAttributes().put(DICTATION_SESSION, sessionId);
+		session.getAttributes().put(DROPPED_FRAMES, new AtomicLong());
+		session.getAttributes().put(LAST_NOTIFIED, new AtomicLong());
+		session.getAttributes().put(FRAME_BYTES, format.bytesPerFrame());
+		streams.put(sessionId, session);
+
+		session.sendMessage(new TextMessage(mapper.writeValueAsString(Map.of(
+				"type", "session",
+				"sessionId", sessionId,
+				"format", Map.of(
+						"sampleRate", format.sampleRate(),
+						"channels", format.channels(),
+						"encoding", format.encoding().name().toLowerCase()
+				)
+		))));
+		log.info("Аудиопоток {} привязан к сессии {}, формат {}", session.getId(), sessionId, format);
+	}
+
+	private static StreamFormat requestedFormat(URI uri) {
+		if (uri == null) {
+			return StreamFormat.RECOGNIZER;
+		}
+		Map<String, String> query = UriComponentsBuilder.fromUri(uri).build().getQueryParams().toSingleValueMap();
+		return StreamFormat.parse(query.get("sampleRate"), query.get("channels"), query.get("encoding"));
+	}
+
+	@Override
+	protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+		String sessionId = (String) session.getAttributes().get(DICTATION_SESSION);
+		if (sessionId == null) {
+			return;
+		}
+
+		ByteBuffer payload = message.getPayload();
+		int length = payload.remaining();
+		int bytesPerFrame = (Integer) session.getAttributes().get(FRAME_BYTES);
+		if (length % bytesPerFrame != 0) {
+			log.warn("Аудиопоток {} сессии {}: кадр {} байт не кратен {} байтам на отсчёт",
+					session.getId(), sessionId, length, bytesPerFrame);
+			closeStream(sessionId, CloseStatus.BAD_DATA.withReason(
+					"frame length must be a multiple of " + bytesPerFrame + " bytes"));
+			return;
+		}
+		boolean accepted;
+		if (payload.hasArray()) {
+			accepted = voiceRecognitionService.feedAudio(sessionId, payload.array(),
+					payload.arrayOffset() + payload.position(), length);
+		} else {
+			byte[] data = new byte[length];
+			payload.get(data);
+			accepted = voiceRecognitionService.feedAudio(sessionId, data, 0, length);
+		}
+
+		if (accepted) {
+			return;
+		}
+		if (!voiceRecognitionService.isSessionOpen(sessionId)) {
+			closeStream(sessionId, CloseStatus.GOING_AWAY.withReason("session is closed"));
+			return;
+		}
+		onFrameDropped(session, sessionId);
+	}
+
+	private void closeStream(String sessionId, CloseStatus status) {
+		WebSocketSession session = streams.remove(sessionId);
+		if (session == null || !session.isOpen()) {
+			return;
+		}
+		log.info("Аудиопоток {} сессии {} закрыт: {}", session.getId(), sessionId, status.getReason());
+		try {
+			session.close(status);
+		} catch (Exception e) {
+			log.warn("Не удалось закрыть аудиопоток {}: {}", session.getId(), e.getMessage());
+		}
+	}
+
+	private void onFrameDropped(WebSocketSession session, String sessionId) throws Exception {
+		long dropped = ((AtomicLong) session.getAttributes().get(DROPPED_FRAMES)).incrementAndGet();
+		AtomicLong lastNotified = (AtomicLong) session.getAttributes().get(LAST_NOTIFIED);
+
+		long now = System.currentTimeMillis();
+		if (now - lastNotified.get() < NOTICE_INTERVAL_MS) {
+			return;
+		}
+		lastNotified.set(now);
+
+		log.warn("Сессия {}: декодер не успевает, отброшено кадров: {}", sessionId, dropped);
+		session.sendMessage(new TextMessage(mapper.writeValueAsString(Map.of(
+				"type", "backpressure",
+				"sessionId", sessionId,
+				"droppedFrames", dropped
+		))));
+	}
+
+	@Override
+	public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+		String sessionId = (String) session.getAttributes().remove(DICTATION_SESSION);
+		if (sessionId != null) {
+			streams.remove(sessionId, session);
+			voiceRecognitionService.stopSession(sessionId);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.medsoft.websocket;
+
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Последние результаты одной сессии диктовки с порядковыми номерами.
+ * Хранит не больше {@code capacity} уже сериализованных сообщений; старые
+ * вытесняются новыми. Номера идут с 1 без пропусков.
+ * <p>
+ * Вызывающий держит монитор буфера, пока добавляет сообщение и раздаёт его
+ * подписчикам, и пока подключает нового подписчика с досылкой, поэтому
+ * подписчик не теряет сообщение между досылкой и подпиской.
+ */
+final class ResultReplayBuffer {
+
+	private final TextMessage[] messages;
+	private long lastSeq;
+	private final long createdAt = System.currentTimeMillis();
+	private volatile long finishedAt;
+
+	ResultReplayBuffer(int capacity) {
+		this.messages = new TextMessage[Math.max(1, capacity)];
+	}
+
+	long nextSeq() {
+		return lastSeq + 1;
+	}
+
+	void append(long seq, TextMessage message) {
+		messages[(int) (seq % messages.length)] = message;
+		lastSeq = seq;
+	}
+
+	/** Номер самого старого сообщения, которое ещё можно дослать. */
+	long firstAvailable() {
+		return Math.max(1, lastSeq - messages.length + 1);
+	}
+
+	long lastSeq() {
+		return lastSeq;
+	}
+
+	/** Сообщения с номерами больше {@code afterSeq}, сколько их осталось в буфере. */
+	List<TextMessage> since(long afterSeq) {
+		long from = Math.max(afterSeq + 1, firstAvailable());
+		List<TextMessage> missed = new ArrayList<>((int) Math.max(0, lastSeq - from + 1));
+		for (long seq = from; seq <= lastSeq; seq++) {
+			missed.add(messages[(int) (seq % messages.length)]);
+		}
+		return missed;
+	}
+
+	void finish(long now) {
+		finishedAt = now;
+	}
+
+	/**
+	 * Буфер закончившейся сессии, а также буфер, в который так ничего и не
+	 * записали (подписка на несуществующую сессию), хранится {@code retentionMs}.
+	 */
+	synchronized boolean expired(long now, long retentionMs) {
+		long finished = finishedAt;
+		if (finished != 0) {
+			return now - finished >= retentionMs;
+		}
+		return lastSeq == 0 && now - createdAt >= retentionMs;
+	}
+}
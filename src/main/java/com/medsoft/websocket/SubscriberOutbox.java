@@ -0,0 +1,138 @@
+package com.medsoft.websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Очередь отправки одного подписчика. Сообщения пишутся в сокет в порядке
+ * постановки, и одновременно работает не больше одной задачи отправки, поэтому
+ * промежуточный результат не обгоняет итоговый, а {@code seq} приходят по порядку.
+ * <p>
+ * Отстающий подписчик (в очереди больше {@code bufferSizeLimit} байт или запись
+ * в сокет длится дольше {@code sendTimeLimitMs}) не теряет сообщения молча:
+ * {@link #offer} возвращает {@code false}, и вызывающий закрывает очередь,
+ * чтобы клиент переподключился с {@code lastSeq} и получил пропущенное из буфера досылки.
+ */
+final class SubscriberOutbox {
+
+	/** Пишет сообщение в сокет; вызывается только из задачи отправки. */
+	interface Sender {
+		void send(WebSocketSession session, TextMessage message, long publishedAt) throws IOException;
+	}
+
+	private record Outgoing(TextMessage message, long publishedAt) {
+	}
+
+	private final WebSocketSession session;
+	private final Executor executor;
+	private final Sender sender;
+	private final int bufferSizeLimit;
+	private final long sendTimeLimitNanos;
+
+	private final Queue<Outgoing> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicLong queuedBytes = new AtomicLong();
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private volatile long sendStartedAt;
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	SubscriberOutbox(WebSocketSession session, Executor executor, Sender sender,
+					 int bufferSizeLimit, int sendTimeLimitMs) {
+		this.session = session;
+		this.executor = executor;
+		this.sender = sender;
+		this.bufferSizeLimit = bufferSizeLimit;
+		this.sendTimeLimitNanos = sendTimeLimitMs * 1_000_000L;
+	}
+
+	WebSocketSession session() {
+		return session;
+	}
+
+	/**
+	 * Ставит сообщение в очередь и запускает отправку, если она не идёт.
+	 *
+	 * @return {@code false}, если подписчик отстал и его нужно отключить
+	 */
+	boolean offer(TextMessage message, long publishedAt) {
+		if (closed.get()) {
+			return true;
+		}
+		long started = sendStartedAt;
+		if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos
+				|| queuedBytes.get() + message.getPayloadLength() > bufferSizeLimit) {
+			return false;
+		}
+		queue.add(new Outgoing(message, publishedAt));
+		queuedBytes.addAndGet(message.getPayloadLength());
+		scheduleDrain();
+		return true;
+	}
+
+	private void scheduleDrain() {
+		if (draining.compareAndSet(false, true)) {
+			executor.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		try {
+			Outgoing next;
+			while (!closed.get() && (next = queue.poll()) != null) {
+				queuedBytes.addAndGet(-next.message().getPayloadLength());
+				sendStartedAt = System.nanoTime();
+				try {
+					sender.send(session, next.message(), next.publishedAt());
+				} catch (IOException e) {
+					close(CloseStatus.SESSION_NOT_RELIABLE);
+				} finally {
+					sendStartedAt = 0;
+				}
+			}
+		} finally {
+			draining.set(false);
+		}
+		// Сообщение, добавленное после последнего poll, но до сброса флага
+		if (!closed.get() && !queue.isEmpty()) {
+			scheduleDrain();
+		}
+	}
+
+	/**
+	 * Помечает очередь закрытой и отбрасывает неотправленное. Сам сокет закрывается
+	 * в пуле отправки: вызывающий — поток публикации, а закрытие соединения, на котором
+	 * застряла запись, может блокироваться и задержало бы результаты остальным подписчикам.
+	 */
+	void close(CloseStatus status) {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+		queue.clear();
+		queuedBytes.set(0);
+		try {
+			executor.execute(() -> closeSession(status));
+		} catch (RejectedExecutionException e) {
+			// пул отправки остановлен вместе с приложением
+		}
+	}
+
+	private void closeSession(CloseStatus status) {
+		try {
+			session.close(status);
+		} catch (IOException | RuntimeException e) {
+			// соединение уже разорвано
+		}
+	}
+
+	int queuedMessages() {
+		return queue.size();
+	}
+}
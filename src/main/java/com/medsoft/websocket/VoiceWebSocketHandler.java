@@ -1,39 +1,303 @@
 package com.medsoft.websocket;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medsoft.models.PartialResult;
 import com.medsoft.models.RecognitionResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Рассылает результаты распознавания подписчикам сессии диктовки
+ * ({@code /ws/voice?session=<id>}). Каждый результат сериализуется один раз,
+ * отправка идёт в отдельном пуле через очередь подписчика ({@link SubscriberOutbox}):
+ * сообщения одному клиенту уходят строго по порядку, а зависшая вкладка браузера
+ * не тормозит декодер и других клиентов — её соединение закрывается, и клиент
+ * переподключается с {@code lastSeq}.
+ * <p>
+ * Итоговые результаты нумеруются ({@code seq}) и последние {@code voice.ws.replay-size}
+ * хранятся в буфере сессии. Клиент, потерявший связь, переподключается с
+ * {@code &lastSeq=<n>} и получает только пропущенное; если пропущенное уже вытеснено,
+ * приходит {@code replay-gap}. Буфер живёт ещё {@code voice.ws.replay-retention-ms}
+ * после окончания сессии, чтобы клиент успел забрать последние фразы.
+ */
 @Component
+@Slf4j
 public class VoiceWebSocketHandler extends TextWebSocketHandler {
 
-	private static final Set<WebSocketSession> sessions =
-			ConcurrentHashMap.newKeySet();
+	private static final String DICTATION_SESSION = "dictationSessionId";
+	private static final String OUTBOX = "outbox";
+
+	private final Map<String, Set<SubscriberOutbox>> subscribers = new ConcurrentHashMap<>();
+	private final Map<String, ResultReplayBuffer> replayBuffers = new ConcurrentHashMap<>();
 
 	private final ObjectMapper mapper = new ObjectMapper();
+	private final AtomicLong slowSubscribers = new AtomicLong();
+
+	private final int sendTimeLimitMs;
+	private final int bufferSizeLimit;
+	private final int replaySize;
+	private final long replayRetentionMs;
+	private final ThreadPoolExecutor sendExecutor;
+	private final Timer sendLatency;
+
+	public VoiceWebSocketHandler(@Value("${voice.ws.send-threads:4}") int sendThreads,
+								 @Value("${voice.ws.send-time-limit-ms:5000}") int sendTimeLimitMs,
+								 @Value("${voice.ws.buffer-size-limit-bytes:262144}") int bufferSizeLimit,
+								 @Value("${voice.ws.replay-size:256}") int replaySize,
+								 @Value("${voice.ws.replay-retention-ms:300000}") long replayRetentionMs,
+								 MeterRegistry registry) {
+		this.sendTimeLimitMs = sendTimeLimitMs;
+		this.bufferSizeLimit = bufferSizeLimit;
+		this.replaySize = replaySize;
+		this.replayRetentionMs = replayRetentionMs;
+
+		AtomicInteger counter = new AtomicInteger();
+		// В очереди не больше одной задачи на подписчика, её размер ограничен числом подписчиков
+		this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, "ws-send-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		this.sendLatency = Timer.builder("voice.ws.send")
+				.description("Время от публикации результата до записи в сокет клиента")
+				.publishPercentileHistogram()
+				.register(registry);
+		Gauge.builder("voice.ws.send.queue", this, VoiceWebSocketHandler::queuedMessages)
+				.description("Сообщения в очередях отправки подписчиков")
+				.register(registry);
+		Gauge.builder("voice.ws.subscribers", this, VoiceWebSocketHandler::subscriberCount)
+				.register(registry);
+		Gauge.builder("voice.ws.replay.sessions", replayBuffers, Map::size)
+				.description("Сессии, для которых хранятся результаты для досылки")
+				.register(registry);
+		FunctionCounter.builder("voice.ws.slow_subscribers", slowSubscribers, AtomicLong::get)
+				.description("Подписчики, отключённые из-за отставания отправки")
+				.register(registry);
+	}
 
 	@Override
-	public void afterConnectionEstablished(WebSocketSession session) {
-		sessions.add(session);
+	public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+		Map<String, String> query = UriComponentsBuilder.fromUri(session.getUri()).build()
+				.getQueryParams().toSingleValueMap();
+		String dictationSessionId = query.get("session");
+
+		if (dictationSessionId == null || dictationSessionId.isBlank()) {
+			session.close(CloseStatus.POLICY_VIOLATION.withReason("session parameter is required"));
+			return;
+		}
+
+		long lastSeq;
+		try {
+			lastSeq = query.containsKey("lastSeq") ? Long.parseLong(query.get("lastSeq")) : -1;
+		} catch (NumberFormatException e) {
+			session.close(CloseStatus.POLICY_VIOLATION.withReason("lastSeq must be a number"));
+			return;
+		}
+
+		SubscriberOutbox outbox = new SubscriberOutbox(
+				session, sendExecutor, this::deliver, bufferSizeLimit, sendTimeLimitMs);
+
+		session.getAttributes().put(DICTATION_SESSION, dictationSessionId);
+		session.getAttributes().put(OUTBOX, outbox);
+
+		ResultReplayBuffer buffer = replayBuffer(dictationSessionId);
+		synchronized (buffer) {
+			subscribers.computeIfAbsent(dictationSessionId, id -> ConcurrentHashMap.newKeySet()).add(outbox);
+			if (lastSeq >= 0) {
+				replay(outbox, dictationSessionId, buffer, lastSeq);
+			}
+		}
+	}
+
+	/**
+	 * Ставит в очередь подписчика результаты после {@code lastSeq}. Вызывается под
+	 * монитором буфера, поэтому новые результаты встанут в очередь уже после досланных.
+	 */
+	private void replay(SubscriberOutbox outbox, String dictationSessionId, ResultReplayBuffer buffer,
+						long lastSeq) throws JsonProcessingException {
+		List<TextMessage> missed = buffer.since(lastSeq);
+		TextMessage gap = null;
+		if (lastSeq + 1 < buffer.firstAvailable()) {
+			gap = new TextMessage(mapper.writeValueAsString(Map.of(
+					"type", "replay-gap",
+					"sessionId", dictationSessionId,
+					"fromSeq", lastSeq + 1,
+					"toSeq", buffer.firstAvailable() - 1
+			)));
+			log.warn("Сессия {}: результаты {}..{} уже вытеснены из буфера досылки",
+					dictationSessionId, lastSeq + 1, buffer.firstAvailable() - 1);
+		}
+		if (missed.isEmpty() && gap == null) {
+			return;
+		}
+
+		long publishedAt = System.nanoTime();
+		if (gap != null) {
+			offer(dictationSessionId, outbox, gap, publishedAt);
+		}
+		for (TextMessage message : missed) {
+			offer(dictationSessionId, outbox, message, publishedAt);
+		}
+		log.info("Сессия {}: клиенту {} дослано результатов: {}",
+				dictationSessionId, outbox.session().getId(), missed.size());
+	}
+
+	private ResultReplayBuffer replayBuffer(String dictationSessionId) {
+		return replayBuffers.computeIfAbsent(dictationSessionId, id -> new ResultReplayBuffer(replaySize));
 	}
 
 	@Override
 	public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-		sessions.remove(session);
-	}
+		String dictationSessionId = (String) session.getAttributes().get(DICTATION_SESSION);
+		SubscriberOutbox outbox = (SubscriberOutbox) session.getAttributes().get(OUTBOX);
+		if (dictationSessionId == null || outbox == null) {
+			return;
+		}
 
-	public void broadcast(RecognitionResult result) {
-		sessions.forEach(session -> {
-			try {
-				session.sendMessage(
-						new TextMessage(mapper.writeValueAsString(result))
-				);
-			} catch (Exception ignored) {}
+		outbox.close(status);
+		subscribers.computeIfPresent(dictationSessionId, (id, sessions) -> {
+			sessions.remove(outbox);
+			return sessions.isEmpty() ? null : sessions;
 		});
 	}
+
+	/**
+	 * Нумерует итоговый результат, сохраняет его для досылки и рассылает подписчикам.
+	 * Результаты одной сессии публикует один поток декодирования.
+	 */
+	public void publish(RecognitionResult result) {
+		String dictationSessionId = result.getSessionId();
+		ResultReplayBuffer buffer = replayBuffer(dictationSessionId);
+
+		synchronized (buffer) {
+			long seq = buffer.nextSeq();
+			result.setSeq(seq);
+
+			TextMessage message = serialize(dictationSessionId, result);
+			if (message == null) {
+				return;
+			}
+			buffer.append(seq, message);
+			fanOut(dictationSessionId, message);
+		}
+	}
+
+	/** Сессия распознавания закончилась; её буфер досылки удалится по сроку хранения. */
+	public void sessionFinished(String dictationSessionId) {
+		ResultReplayBuffer buffer = replayBuffers.get(dictationSessionId);
+		if (buffer != null) {
+			buffer.finish(System.currentTimeMillis());
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${voice.ws.replay-purge-interval-ms:30000}")
+	public void purgeReplayBuffers() {
+		long now = System.currentTimeMillis();
+		replayBuffers.entrySet().removeIf(entry -> entry.getValue().expired(now, replayRetentionMs)
+				&& !subscribers.containsKey(entry.getKey()));
+	}
+
+	/**
+	 * Рассылает промежуточный результат без сохранения для досылки. Монитор буфера
+	 * нужен, чтобы промежуточный результат не обогнал досылку нового подписчика.
+	 */
+	public void publish(PartialResult partial) {
+		String dictationSessionId = partial.getSessionId();
+		ResultReplayBuffer buffer = replayBuffers.get(dictationSessionId);
+		if (buffer == null || !subscribers.containsKey(dictationSessionId)) {
+			return;
+		}
+
+		TextMessage message = serialize(dictationSessionId, partial);
+		if (message == null) {
+			return;
+		}
+		synchronized (buffer) {
+			fanOut(dictationSessionId, message);
+		}
+	}
+
+	public int subscriberCount() {
+		return subscribers.values().stream().mapToInt(Set::size).sum();
+	}
+
+	public long slowSubscribers() {
+		return slowSubscribers.get();
+	}
+
+	private int queuedMessages() {
+		return subscribers.values().stream()
+				.flatMap(Set::stream)
+				.mapToInt(SubscriberOutbox::queuedMessages)
+				.sum();
+	}
+
+	private TextMessage serialize(String dictationSessionId, Object payload) {
+		try {
+			return new TextMessage(mapper.writeValueAsString(payload));
+		} catch (JsonProcessingException e) {
+			log.error("Ошибка сериализации результата сессии {}: {}", dictationSessionId, e.getMessage());
+			return null;
+		}
+	}
+
+	private void fanOut(String dictationSessionId, TextMessage message) {
+		Set<SubscriberOutbox> outboxes = subscribers.get(dictationSessionId);
+		if (outboxes == null || outboxes.isEmpty()) {
+			return;
+		}
+		long publishedAt = System.nanoTime();
+		for (SubscriberOutbox outbox : outboxes) {
+			offer(dictationSessionId, outbox, message, publishedAt);
+		}
+	}
+
+	private void offer(String dictationSessionId, SubscriberOutbox outbox, TextMessage message, long publishedAt) {
+		if (!outbox.offer(message, publishedAt)) {
+			slowSubscribers.incrementAndGet();
+			log.warn("Сессия {}: клиент {} не успевает принимать результаты, соединение закрыто",
+					dictationSessionId, outbox.session().getId());
+			outbox.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("subscriber is too slow"));
+		}
+	}
+
+	private void deliver(WebSocketSession session, TextMessage message, long publishedAt) throws IOException {
+		if (!session.isOpen()) {
+			return;
+		}
+		try {
+			session.sendMessage(message);
+			sendLatency.record(System.nanoTime() - publishedAt, TimeUnit.NANOSECONDS);
+		} catch (IOException e) {
+			log.warn("Не удалось отправить результат клиенту {}: {}", session.getId(), e.getMessage());
+			throw e;
+		}
+	}
+
+	@PreDestroy
+	public void cleanup() {
+		sendExecutor.shutdownNow();
+	}
 }
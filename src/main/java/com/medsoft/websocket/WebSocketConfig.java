@@ -1,23 +1,41 @@
 package com.medsoft.websocket;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
 	private final VoiceWebSocketHandler voiceWebSocketHandler;
+	private final AudioStreamWebSocketHandler audioStreamWebSocketHandler;
 
-	public WebSocketConfig(VoiceWebSocketHandler voiceWebSocketHandler) {
+	@Value("${voice.audio.max-frame-bytes:32768}")
+	private int maxAudioFrameBytes;
+
+	public WebSocketConfig(VoiceWebSocketHandler voiceWebSocketHandler,
+						   AudioStreamWebSocketHandler audioStreamWebSocketHandler) {
 		this.voiceWebSocketHandler = voiceWebSocketHandler;
+		this.audioStreamWebSocketHandler = audioStreamWebSocketHandler;
 	}
 
 	@Override
 	public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
 		registry.addHandler(voiceWebSocketHandler, "/ws/voice")
 				.setAllowedOrigins("*");
+		registry.addHandler(audioStreamWebSocketHandler, "/ws/audio")
+				.setAllowedOrigins("*");
+	}
+
+	@Bean
+	public ServletServerContainerFactoryBean createWebSocketContainer() {
+		ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+		container.setMaxBinaryMessageBufferSize(maxAudioFrameBytes);
+		return container;
 	}
 }
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS operation_reports (
+    id                    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    patient_full_name     VARCHAR(255) NOT NULL,
+    doctor_full_name      VARCHAR(255) NOT NULL,
+    diagnosis             VARCHAR(255) NOT NULL,
+    operation_description TEXT,
+    filler_full_name      VARCHAR(255) NOT NULL,
+    personal_number       VARCHAR(255) NOT NULL,
+    created_at            TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,5 @@
+-- Идентификаторы выдаются пачками по 50 (pooled optimizer Hibernate),
+-- что позволяет пакетную вставку без возврата ключа после каждой строки.
+CREATE SEQUENCE IF NOT EXISTS operation_reports_seq INCREMENT BY 50;
+
+SELECT setval('operation_reports_seq', COALESCE((SELECT MAX(id) FROM operation_reports), 0) + 50, false);
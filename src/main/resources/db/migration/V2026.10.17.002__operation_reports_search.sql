@@ -0,0 +1,22 @@
+-- Полнотекстовый поиск по диагнозу и описанию операции с русской морфологией.
+-- Колонка вычисляется базой, приложение её не пишет.
+ALTER TABLE operation_reports
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('russian', coalesce(diagnosis, '')), 'A') ||
+            setweight(to_tsvector('russian', coalesce(operation_description, '')), 'B')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_operation_reports_search
+    ON operation_reports USING GIN (search_vector);
+
+-- Ключ постраничной выборки: новые отчеты первыми
+CREATE INDEX IF NOT EXISTS idx_operation_reports_created
+    ON operation_reports (created_at DESC, id DESC);
+
+-- Поиск по началу ФИО без учета регистра
+CREATE INDEX IF NOT EXISTS idx_operation_reports_patient
+    ON operation_reports (lower(patient_full_name) text_pattern_ops);
+
+CREATE INDEX IF NOT EXISTS idx_operation_reports_doctor
+    ON operation_reports (lower(doctor_full_name) text_pattern_ops);
@@ -0,0 +1,3 @@
+-- Последние отчеты врача: точное совпадение ФИО и порядок выдачи из индекса
+CREATE INDEX IF NOT EXISTS idx_operation_reports_doctor_recent
+    ON operation_reports (doctor_full_name, created_at DESC, id DESC);
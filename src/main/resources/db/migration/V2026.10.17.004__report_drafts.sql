@@ -0,0 +1,16 @@
+-- Черновики отчетов, которые заполняются голосом, по одной строке на сессию диктовки.
+-- Строки пишутся пачками из памяти, version отсекает запоздавшие записи.
+CREATE TABLE IF NOT EXISTS report_drafts (
+    session_id            VARCHAR(64) PRIMARY KEY,
+    patient_full_name     TEXT NOT NULL DEFAULT '',
+    doctor_full_name      TEXT NOT NULL DEFAULT '',
+    diagnosis             TEXT NOT NULL DEFAULT '',
+    operation_description TEXT NOT NULL DEFAULT '',
+    filler_full_name      TEXT NOT NULL DEFAULT '',
+    personal_number       TEXT NOT NULL DEFAULT '',
+    active_field          VARCHAR(64) NOT NULL,
+    version               BIGINT NOT NULL,
+    updated_at            TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_report_drafts_updated ON report_drafts (updated_at);
@@ -0,0 +1,121 @@
+package com.medsoft.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class PcmFileTest {
+
+	private static final int FMT = 0x20746d66;
+	private static final int DATA = 0x61746164;
+	private static final int LIST = 0x5453494c;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readsFormatAndDataOfWav() throws IOException {
+		ByteBuffer wav = riff(16 + 8 + 12 + 8 + 8);
+		fmt(wav, 16, 48000, 2);
+		chunk(wav, LIST, 3).put(new byte[]{1, 2, 3, 0});
+		chunk(wav, DATA, 8).put(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+		PcmFile file = PcmFile.open(write(wav), 16000, 1);
+
+		assertThat(file.getSampleRate()).isEqualTo(48000);
+		assertThat(file.getChannels()).isEqualTo(2);
+		assertThat(file.getData().limit()).isEqualTo(8);
+		assertThat(file.getData().get(0)).isEqualTo((byte) 1);
+	}
+
+	@Test
+	void rejectsNegativeChunkSizeInsteadOfLooping() throws IOException {
+		ByteBuffer wav = riff(16 + 8 + 8 + 8);
+		fmt(wav, 16, 16000, 1);
+		// -8 раньше оставлял позицию на месте: разбор не заканчивался
+		chunk(wav, LIST, -8);
+		chunk(wav, DATA, 0);
+		Path path = write(wav);
+
+		assertTimeoutPreemptively(Duration.ofSeconds(2), () ->
+				assertThatThrownBy(() -> PcmFile.open(path, 16000, 1))
+						.isInstanceOf(IllegalArgumentException.class));
+	}
+
+	@Test
+	void rejectsNegativeDataSize() throws IOException {
+		ByteBuffer wav = riff(16 + 8 + 8 + 4);
+		fmt(wav, 16, 16000, 1);
+		chunk(wav, DATA, -4);
+		Path path = write(wav);
+
+		assertThatThrownBy(() -> PcmFile.open(path, 16000, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsChunkLargerThanFile() throws IOException {
+		ByteBuffer wav = riff(16 + 8 + 8 + 4);
+		fmt(wav, 16, 16000, 1);
+		// Без проверки позиция следующего блока переполнила бы int
+		chunk(wav, LIST, Integer.MAX_VALUE - 1);
+		Path path = write(wav);
+
+		assertThatThrownBy(() -> PcmFile.open(path, 16000, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsShortFormatChunk() throws IOException {
+		ByteBuffer wav = riff(8 + 8 + 8 + 4);
+		chunk(wav, FMT, 8).putShort((short) 1).putShort((short) 1).putInt(16000);
+		chunk(wav, DATA, 4);
+		Path path = write(wav);
+
+		assertThatThrownBy(() -> PcmFile.open(path, 16000, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void treatsFileWithoutRiffHeaderAsRawPcm() throws IOException {
+		Path path = dir.resolve("raw.pcm");
+		Files.write(path, new byte[64]);
+
+		PcmFile file = PcmFile.open(path, 8000, 1);
+
+		assertThat(file.getSampleRate()).isEqualTo(8000);
+		assertThat(file.durationMs()).isEqualTo(4);
+	}
+
+	private static ByteBuffer riff(int chunksBytes) {
+		ByteBuffer wav = ByteBuffer.allocate(12 + chunksBytes).order(ByteOrder.LITTLE_ENDIAN);
+		return wav.putInt(0x46464952).putInt(4 + chunksBytes).putInt(0x45564157);
+	}
+
+	private static void fmt(ByteBuffer wav, int size, int sampleRate, int channels) {
+		chunk(wav, FMT, size)
+				.putShort((short) 1)
+				.putShort((short) channels)
+				.putInt(sampleRate)
+				.putInt(sampleRate * channels * 2)
+				.putShort((short) (channels * 2))
+				.putShort((short) 16);
+	}
+
+	private static ByteBuffer chunk(ByteBuffer wav, int id, int size) {
+		return wav.putInt(id).putInt(size);
+	}
+
+	private Path write(ByteBuffer wav) throws IOException {
+		Path path = dir.resolve("recording.wav");
+		Files.write(path, wav.array());
+		return path;
+	}
+}
@@ -0,0 +1,133 @@
+package com.medsoft.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PcmRingBufferTest {
+
+	@Test
+	void rejectsCapacityThatIsNotPowerOfTwo() {
+		assertThatThrownBy(() -> new PcmRingBuffer(1000)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new PcmRingBuffer(0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void readFromEmptyBufferTimesOutWithZero() {
+		PcmRingBuffer buffer = new PcmRingBuffer(16);
+
+		long start = System.nanoTime();
+		int read = buffer.read(new byte[8], 0, 8, 20, TimeUnit.MILLISECONDS);
+
+		assertThat(read).isZero();
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+		assertThat(buffer.available()).isZero();
+		assertThat(buffer.free()).isEqualTo(16);
+	}
+
+	@Test
+	void fillsExactlyToCapacityAndDropsWholeFrameWhenFull() {
+		PcmRingBuffer buffer = new PcmRingBuffer(16);
+
+		assertThat(buffer.write(sequence(0, 16), 0, 16)).isTrue();
+		assertThat(buffer.free()).isZero();
+		assertThat(buffer.fillLevel()).isEqualTo(1.0);
+
+		assertThat(buffer.write(sequence(16, 4), 0, 4)).isFalse();
+		assertThat(buffer.overruns()).isEqualTo(1);
+		assertThat(buffer.droppedBytes()).isEqualTo(4);
+		assertThat(buffer.totalWritten()).isEqualTo(16);
+
+		byte[] out = new byte[16];
+		assertThat(buffer.read(out, 0, out.length, 0, TimeUnit.MILLISECONDS)).isEqualTo(16);
+		assertThat(out).isEqualTo(sequence(0, 16));
+	}
+
+	@Test
+	void frameLargerThanFreeSpaceIsNotWrittenPartially() {
+		PcmRingBuffer buffer = new PcmRingBuffer(16);
+		buffer.write(sequence(0, 10), 0, 10);
+
+		assertThat(buffer.write(sequence(10, 8), 0, 8)).isFalse();
+
+		assertThat(buffer.available()).isEqualTo(10);
+		byte[] out = new byte[16];
+		assertThat(buffer.read(out, 0, out.length, 0, TimeUnit.MILLISECONDS)).isEqualTo(10);
+	}
+
+	@Test
+	void wrapsAroundEndOfArray() {
+		PcmRingBuffer buffer = new PcmRingBuffer(16);
+		byte[] out = new byte[16];
+
+		buffer.write(sequence(0, 12), 0, 12);
+		assertThat(buffer.read(out, 0, 10, 0, TimeUnit.MILLISECONDS)).isEqualTo(10);
+
+		// Запись начинается с позиции 12 и переходит через конец массива
+		assertThat(buffer.write(sequence(12, 12), 0, 12)).isTrue();
+		assertThat(buffer.available()).isEqualTo(14);
+
+		assertThat(buffer.read(out, 0, out.length, 0, TimeUnit.MILLISECONDS)).isEqualTo(14);
+		byte[] expected = sequence(10, 14);
+		for (int i = 0; i < expected.length; i++) {
+			assertThat(out[i]).as("байт %d", i).isEqualTo(expected[i]);
+		}
+	}
+
+	@Test
+	void keepsOrderOverManyWrapArounds() {
+		PcmRingBuffer buffer = new PcmRingBuffer(64);
+		byte[] out = new byte[64];
+		int next = 0;
+		int expected = 0;
+
+		for (int round = 0; round < 1000; round++) {
+			int length = 1 + round % 37;
+			if (buffer.write(sequence(next, length), 0, length)) {
+				next += length;
+			}
+			int read = buffer.read(out, 0, 1 + round % 29, 0, TimeUnit.MILLISECONDS);
+			for (int i = 0; i < read; i++) {
+				assertThat(out[i]).isEqualTo((byte) expected++);
+			}
+		}
+		assertThat(buffer.totalWritten()).isEqualTo(next);
+	}
+
+	@Test
+	void readerParkedOnEmptyBufferWakesUpOnWrite() throws InterruptedException {
+		PcmRingBuffer buffer = new PcmRingBuffer(16);
+		int[] read = new int[1];
+		Thread reader = new Thread(() -> read[0] = buffer.read(new byte[16], 0, 16, 5, TimeUnit.SECONDS));
+		reader.start();
+
+		Thread.sleep(50);
+		buffer.write(sequence(0, 6), 0, 6);
+		reader.join(1000);
+
+		assertThat(reader.isAlive()).isFalse();
+		assertThat(read[0]).isEqualTo(6);
+	}
+
+	@Test
+	void dropCountsOverrunWithoutWriting() {
+		PcmRingBuffer buffer = new PcmRingBuffer(16);
+
+		buffer.drop(12);
+
+		assertThat(buffer.overruns()).isEqualTo(1);
+		assertThat(buffer.droppedBytes()).isEqualTo(12);
+		assertThat(buffer.available()).isZero();
+	}
+
+	private static byte[] sequence(int from, int length) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) (from + i);
+		}
+		return data;
+	}
+}
@@ -0,0 +1,161 @@
+package com.medsoft.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PolyphaseResamplerTest {
+
+	private static final int TARGET_RATE = 16000;
+	private static final int BLOCK_BYTES = 4096;
+	/** Отсчёты на выходе, которые пропускаем, пока заполняется история фильтра. */
+	private static final int WARM_UP = 200;
+	private static final double AMPLITUDE = 0.5;
+
+	@ParameterizedTest
+	@CsvSource({
+			"48000, 1, S16LE",
+			"48000, 2, S16LE",
+			"44100, 1, F32LE",
+			"44100, 2, F32LE",
+			"22050, 1, S16LE",
+			"8000,  1, S16LE"
+	})
+	void keepsUnitGainAtDc(int sampleRate, int channels, StreamFormat.Encoding encoding) {
+		StreamFormat format = new StreamFormat(sampleRate, channels, encoding);
+		short[] output = resample(format, encode(format, constant(sampleRate, AMPLITUDE)));
+
+		for (int i = WARM_UP; i < output.length - WARM_UP; i++) {
+			assertThat(output[i] / 32768.0).as("отсчёт %d", i).isCloseTo(AMPLITUDE, within(0.005));
+		}
+	}
+
+	@ParameterizedTest
+	@CsvSource({"48000", "44100", "22050", "8000"})
+	void outputLengthFollowsRateRatio(int sampleRate) {
+		StreamFormat format = new StreamFormat(sampleRate, 1, StreamFormat.Encoding.S16LE);
+		short[] output = resample(format, encode(format, constant(sampleRate, AMPLITUDE)));
+
+		assertThat(output.length).isCloseTo(TARGET_RATE, within(2));
+	}
+
+	@ParameterizedTest
+	@CsvSource({"48000", "44100"})
+	void passesToneInPassband(int sampleRate) {
+		assertThat(gainDb(sampleRate, 1000)).isCloseTo(0.0, within(0.1));
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"48000, 12000, -45",
+			"48000, 15000, -70",
+			"48000, 20000, -70",
+			"44100, 12000, -60",
+			"44100, 15000, -70",
+			"44100, 20000, -70"
+	})
+	void attenuatesToneAboveOutputNyquist(int sampleRate, double frequency, double maxGainDb) {
+		// Без фильтра такой тон отразился бы в полосу 0–8 кГц
+		assertThat(gainDb(sampleRate, frequency)).isLessThan(maxGainDb);
+	}
+
+	@Test
+	void resultDoesNotDependOnBlockBoundaries() {
+		StreamFormat format = new StreamFormat(44100, 2, StreamFormat.Encoding.S16LE);
+		byte[] input = encode(format, sine(44100, 440, 0.3));
+
+		short[] whole = resample(format, input);
+
+		PolyphaseResampler resampler = new PolyphaseResampler(format, TARGET_RATE, BLOCK_BYTES);
+		ByteArrayOutputStream chunked = new ByteArrayOutputStream();
+		Random random = new Random(42);
+		for (int position = 0; position < input.length; ) {
+			// Блоки произвольной длины, в том числе с неполным кадром на конце
+			int length = Math.min(1 + random.nextInt(BLOCK_BYTES), input.length - position);
+			int expected = resampler.maxOutputBytes(length);
+			int converted = resampler.process(input, position, length);
+			assertThat(converted).isLessThanOrEqualTo(expected);
+			chunked.write(resampler.output(), 0, converted);
+			position += length;
+		}
+
+		assertThat(toShorts(chunked.toByteArray())).isEqualTo(whole);
+	}
+
+	private static double gainDb(int sampleRate, double frequency) {
+		StreamFormat format = new StreamFormat(sampleRate, 1, StreamFormat.Encoding.S16LE);
+		short[] output = resample(format, encode(format, sine(sampleRate, frequency, AMPLITUDE)));
+
+		double sum = 0;
+		int count = 0;
+		for (int i = WARM_UP; i < output.length - WARM_UP; i++) {
+			double sample = output[i] / 32768.0;
+			sum += sample * sample;
+			count++;
+		}
+		double rms = Math.sqrt(sum / count);
+		return 20 * Math.log10(rms / (AMPLITUDE / Math.sqrt(2)));
+	}
+
+	private static short[] resample(StreamFormat format, byte[] input) {
+		PolyphaseResampler resampler = new PolyphaseResampler(format, TARGET_RATE, BLOCK_BYTES);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int position = 0; position < input.length; position += BLOCK_BYTES) {
+			int converted = resampler.process(input, position, Math.min(BLOCK_BYTES, input.length - position));
+			out.write(resampler.output(), 0, converted);
+		}
+		return toShorts(out.toByteArray());
+	}
+
+	/** Одна секунда постоянного сигнала. */
+	private static double[] constant(int sampleRate, double value) {
+		double[] samples = new double[sampleRate];
+		Arrays.fill(samples, value);
+		return samples;
+	}
+
+	/** Одна секунда синуса. */
+	private static double[] sine(int sampleRate, double frequency, double amplitude) {
+		double[] samples = new double[sampleRate];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = amplitude * Math.sin(2 * Math.PI * frequency * i / sampleRate);
+		}
+		return samples;
+	}
+
+	/** Один и тот же сигнал во всех каналах. */
+	private static byte[] encode(StreamFormat format, double[] samples) {
+		byte[] data = new byte[samples.length * format.bytesPerFrame()];
+		int position = 0;
+		for (double sample : samples) {
+			for (int channel = 0; channel < format.channels(); channel++) {
+				if (format.encoding() == StreamFormat.Encoding.S16LE) {
+					int value = (int) Math.round(sample * 32767);
+					data[position++] = (byte) value;
+					data[position++] = (byte) (value >> 8);
+				} else {
+					int bits = Float.floatToIntBits((float) sample);
+					for (int shift = 0; shift < 32; shift += 8) {
+						data[position++] = (byte) (bits >> shift);
+					}
+				}
+			}
+		}
+		return data;
+	}
+
+	private static short[] toShorts(byte[] pcm) {
+		short[] samples = new short[pcm.length / 2];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = (short) ((pcm[2 * i] & 0xFF) | (pcm[2 * i + 1] << 8));
+		}
+		return samples;
+	}
+}
@@ -0,0 +1,152 @@
+package com.medsoft.recognition;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandMatcherTest {
+
+	/** Словарь и проверки {@code isCommand}/{@code identifyCommandType} до перехода на автомат. */
+	private static final Set<String> LEGACY_COMMANDS = Set.of(
+			"пациент", "врач", "диагноз", "операция", "заполняющий", "табельный",
+			"следующее", "предыдущее", "готово", "завершить",
+			"очистить", "отмена", "создать pdf", "отправить отчет",
+			"поле диагноз", "поле операция", "поле пациент", "поле врач"
+	);
+
+	/** В старом коде был {@code Map.of} с неопределённым порядком; автомат проверяет поля по порядку словаря. */
+	private static final Map<String, String> LEGACY_FIELDS = new LinkedHashMap<>();
+
+	static {
+		LEGACY_FIELDS.put("пациент", "patientField");
+		LEGACY_FIELDS.put("врач", "doctorField");
+		LEGACY_FIELDS.put("диагноз", "diagnosisField");
+		LEGACY_FIELDS.put("операция", "operationField");
+		LEGACY_FIELDS.put("заполняющий", "fillerField");
+		LEGACY_FIELDS.put("табельный", "personalNumberField");
+	}
+
+	private static final List<String> PHRASES = List.of(
+			"поле", "следующее", "предыдущее", "готово", "заверши", "завершить", "создай pdf", "создать pdf",
+			"отправь", "отправить", "отправить отчет", "очисти", "очистить", "пациент", "врач", "диагноз",
+			"операция", "заполняющий", "табельный", "отмена", "заполни", "введи", "удали", "создай",
+			"поле диагноз", "поле врач");
+
+	private static final List<String> FILLERS = List.of(
+			"", "пациент жалуется на боль", "давление в норме", "операция прошла", "PDF", "Готово!");
+
+	private final CommandMatcher matcher = new CommandMatcher(new CommandVocabulary());
+
+	@Test
+	void matchesLegacyDecisionsForSinglePhrases() {
+		for (String phrase : PHRASES) {
+			for (String filler : FILLERS) {
+				assertSameAsLegacy(filler + " " + phrase);
+				assertSameAsLegacy(phrase + " " + filler);
+			}
+		}
+	}
+
+	@Test
+	void matchesLegacyPriorityForPhrasePairs() {
+		for (String first : PHRASES) {
+			for (String second : PHRASES) {
+				assertSameAsLegacy(first + " " + second);
+			}
+		}
+	}
+
+	@Test
+	void plainDictationIsNotACommand() {
+		for (String text : List.of("", "   ", "давление сто двадцать на восемьдесят", "отправить")) {
+			assertThat(matcher.match(text)).isSameAs(CommandMatch.NONE);
+			assertSameAsLegacy(text);
+		}
+		assertThat(matcher.match(null)).isSameAs(CommandMatch.NONE);
+	}
+
+	@Test
+	void fieldSwitchWinsOverNavigation() {
+		CommandMatch match = matcher.match("Следующее поле диагноз");
+
+		assertThat(match.isCommand()).isTrue();
+		assertThat(match.getType()).isEqualTo("FIELD_SWITCH");
+		assertThat(match.getField()).isEqualTo("diagnosisField");
+	}
+
+	@Test
+	void triggerWithoutTypeIsUnknown() {
+		CommandMatch match = matcher.match("введи");
+
+		assertThat(match.isCommand()).isTrue();
+		assertThat(match.getType()).isEqualTo(CommandVocabulary.UNKNOWN);
+		assertThat(match.getField()).isNull();
+	}
+
+	@Test
+	void extraPhrasesGoAfterDefaults() {
+		CommandVocabulary vocabulary = new CommandVocabulary();
+		vocabulary.setExtra(new ArrayList<>(List.of(
+				new CommandPattern("печать", "GENERATE_PDF", true, null),
+				new CommandPattern("готово", "SEND_EMAIL", true, null))));
+		CommandMatcher extended = new CommandMatcher(vocabulary);
+
+		assertThat(extended.match("печать отчета").getType()).isEqualTo("GENERATE_PDF");
+		assertThat(extended.match("готово").getType()).isEqualTo("COMPLETE");
+	}
+
+	private void assertSameAsLegacy(String text) {
+		CommandMatch match = matcher.match(text);
+		boolean command = legacyIsCommand(text);
+
+		assertThat(match.isCommand()).as("признак команды: «%s»", text).isEqualTo(command);
+		assertThat(match.getType()).as("тип команды: «%s»", text)
+				.isEqualTo(command ? legacyCommandType(text) : "");
+	}
+
+	private static boolean legacyIsCommand(String text) {
+		if (text == null || text.trim().isEmpty()) {
+			return false;
+		}
+		String lowerText = text.toLowerCase();
+		for (String command : LEGACY_COMMANDS) {
+			if (lowerText.contains(command)) {
+				return true;
+			}
+		}
+		return lowerText.matches(".*(поле|заполни|введи|очисти|удали|готово|заверши|отправь|создай).*");
+	}
+
+	private static String legacyCommandType(String text) {
+		String lowerText = text.toLowerCase();
+
+		if (lowerText.contains("поле")) {
+			return "FIELD_SWITCH";
+		} else if (lowerText.contains("следующее")) {
+			return "NEXT_FIELD";
+		} else if (lowerText.contains("предыдущее")) {
+			return "PREVIOUS_FIELD";
+		} else if (lowerText.contains("готово") || lowerText.contains("заверши")) {
+			return "COMPLETE";
+		} else if (lowerText.contains("создай pdf") || lowerText.contains("создать pdf")) {
+			return "GENERATE_PDF";
+		} else if (lowerText.contains("отправь") || lowerText.contains("отправить")) {
+			return "SEND_EMAIL";
+		} else if (lowerText.contains("очисти") || lowerText.contains("очистить")) {
+			return "CLEAR";
+		}
+
+		for (Map.Entry<String, String> entry : LEGACY_FIELDS.entrySet()) {
+			if (lowerText.contains(entry.getKey())) {
+				return "FIELD_" + entry.getValue().toUpperCase();
+			}
+		}
+		return CommandVocabulary.UNKNOWN;
+	}
+}
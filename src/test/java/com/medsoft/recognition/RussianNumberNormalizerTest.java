@@ -0,0 +1,79 @@
+package com.medsoft.recognition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RussianNumberNormalizerTest {
+
+	private final RussianNumberNormalizer normalizer = new RussianNumberNormalizer();
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', value = {
+			"пять                               | 5",
+			"двадцать три                       | 23",
+			"сто пятнадцать                     | 115",
+			"триста сорок два                   | 342",
+			"тысяча                             | 1000",
+			"две тысячи сорок                   | 2040",
+			"тысяча девятьсот восемьдесят пять  | 1985",
+			"триста тысяч                       | 300000",
+			"двадцать одна тысяча сто           | 21100",
+			"ноль                               | 0"
+	})
+	void joinsCompoundNumerals(String text, String expected) {
+		assertThat(normalizer.normalize(text)).isEqualTo(expected);
+	}
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', value = {
+			"три пять                   | 3 5",
+			"двадцать десять            | 20 10",
+			"пятнадцать три             | 15 3",
+			"сто двести                 | 100 200",
+			"тысяча тысяча              | 1000 1000",
+			"ноль пять                  | 0 5",
+			"двадцать ноль              | 20 0"
+	})
+	void splitsSequencesThatAreNotOneNumber(String text, String expected) {
+		assertThat(normalizer.normalize(text)).isEqualTo(expected);
+	}
+
+	@Test
+	void replacesNumeralsInsideDictation() {
+		assertThat(normalizer.normalize("давление сто двадцать на восемьдесят, пульс семьдесят два"))
+				.isEqualTo("давление 120 на 80, пульс 72");
+	}
+
+	@Test
+	void ignoresCase() {
+		assertThat(normalizer.normalize("Двадцать Три")).isEqualTo("23");
+	}
+
+	@Test
+	void comparesWholeWordsOnly() {
+		for (String text : new String[]{"сторона", "пятнадцатый", "трижды", "семьи", "сороковой", "одиннадцатого"}) {
+			assertThat(normalizer.normalize(text)).as(text).isEqualTo(text);
+		}
+		assertThat(normalizer.normalize("сто столов")).isEqualTo("100 столов");
+		assertThat(normalizer.normalize("пятый и пять")).isEqualTo("пятый и 5");
+	}
+
+	@Test
+	void punctuationEndsNumber() {
+		assertThat(normalizer.normalize("сто, двадцать.")).isEqualTo("100, 20.");
+		assertThat(normalizer.normalize("(три)")).isEqualTo("(3)");
+		assertThat(normalizer.normalize("двадцать  три")).isEqualTo("20  3");
+	}
+
+	@Test
+	void returnsSameStringWhenNothingToReplace() {
+		String text = "операция прошла без осложнений";
+
+		assertThat(normalizer.normalize(text)).isSameAs(text);
+		assertThat(normalizer.normalize("")).isEmpty();
+		assertThat(normalizer.normalize(null)).isNull();
+	}
+}
@@ -0,0 +1,186 @@
+package com.medsoft.recognition;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionLifecycleSchedulerTest {
+
+	private static final long TICK_MS = 5;
+
+	private final SessionLifecycleScheduler scheduler = new SessionLifecycleScheduler();
+	private final BlockingQueue<Expired> expired = new LinkedBlockingQueue<>();
+
+	private record Expired(String sessionId, SessionLifecycleScheduler.Reason reason, long atNanos) {
+	}
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(scheduler, "tickMs", TICK_MS);
+		// Маленькое колесо: сроки длиннее одного оборота проходят через rounds
+		ReflectionTestUtils.setField(scheduler, "wheelSize", 8);
+		scheduler.init();
+		scheduler.addExpiryListener((id, reason) -> expired.add(new Expired(id, reason, System.nanoTime())));
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		scheduler.cleanup();
+	}
+
+	@Test
+	void expiresByDeadline() throws InterruptedException {
+		long start = System.nanoTime();
+		scheduler.track("s1", 100, 0, System::nanoTime);
+
+		Expired event = expired.poll(2, TimeUnit.SECONDS);
+
+		assertThat(event).isNotNull();
+		assertThat(event.sessionId()).isEqualTo("s1");
+		assertThat(event.reason()).isEqualTo(SessionLifecycleScheduler.Reason.DEADLINE);
+		assertThat(event.atNanos() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(scheduler.size()).isZero();
+	}
+
+	@Test
+	void expiresByIdleWhenNoAudioArrives() throws InterruptedException {
+		long lastAudio = System.nanoTime();
+		scheduler.track("s1", 0, 60, () -> lastAudio);
+
+		Expired event = expired.poll(2, TimeUnit.SECONDS);
+
+		assertThat(event).isNotNull();
+		assertThat(event.reason()).isEqualTo(SessionLifecycleScheduler.Reason.IDLE);
+		assertThat(event.atNanos() - lastAudio).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(60));
+	}
+
+	@Test
+	void activeSessionIsNotIdle() throws InterruptedException {
+		scheduler.track("s1", 200, 30, System::nanoTime);
+
+		Expired event = expired.poll(2, TimeUnit.SECONDS);
+
+		assertThat(event).isNotNull();
+		assertThat(event.reason()).isEqualTo(SessionLifecycleScheduler.Reason.DEADLINE);
+	}
+
+	@Test
+	void cancelledSessionDoesNotExpire() throws InterruptedException {
+		scheduler.track("s1", 40, 20, System::nanoTime);
+
+		assertThat(scheduler.cancel("s1")).isTrue();
+		assertThat(scheduler.cancel("s1")).isFalse();
+
+		assertThat(expired.poll(200, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(scheduler.size()).isZero();
+	}
+
+	@Test
+	void retrackedSessionIgnoresStaleGeneration() throws InterruptedException {
+		long start = System.nanoTime();
+		scheduler.track("s1", 40, 0, System::nanoTime);
+		long firstGeneration = generationOf("s1");
+
+		scheduler.track("s1", 250, 0, System::nanoTime);
+
+		assertThat(generationOf("s1")).isGreaterThan(firstGeneration);
+		// Таймер первого поколения срабатывает на 40 мс, но сессию не останавливает
+		assertThat(expired.poll(150, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(scheduler.size()).isEqualTo(1);
+
+		Expired event = expired.poll(2, TimeUnit.SECONDS);
+		assertThat(event).isNotNull();
+		assertThat(event.atNanos() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+		assertThat(expired.poll(100, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void failingListenerDoesNotStopOthers() throws InterruptedException {
+		SessionLifecycleScheduler isolated = new SessionLifecycleScheduler();
+		ReflectionTestUtils.setField(isolated, "tickMs", TICK_MS);
+		ReflectionTestUtils.setField(isolated, "wheelSize", 8);
+		isolated.init();
+		try {
+			isolated.addExpiryListener((id, reason) -> {
+				throw new IllegalStateException("listener failed");
+			});
+			isolated.addExpiryListener((id, reason) -> expired.add(new Expired(id, reason, System.nanoTime())));
+
+			isolated.track("s1", 20, 0, System::nanoTime);
+
+			assertThat(expired.poll(2, TimeUnit.SECONDS)).isNotNull();
+		} finally {
+			isolated.cleanup();
+		}
+	}
+
+	@Test
+	void rearmedTimerOnRotationBoundaryFiresInTime() throws InterruptedException {
+		long tickMs = 10;
+		int slots = 8;
+		long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+		long idleMs = tickMs * slots;
+		SessionLifecycleScheduler wheel = new SessionLifecycleScheduler();
+		ReflectionTestUtils.setField(wheel, "tickMs", tickMs);
+		ReflectionTestUtils.setField(wheel, "wheelSize", slots);
+		wheel.init();
+		try {
+			wheel.addExpiryListener((id, reason) -> expired.add(new Expired(id, reason, System.nanoTime())));
+			long startNanos = (Long) ReflectionTestUtils.getField(wheel, "startNanos");
+			long trackedAt = System.nanoTime();
+			AtomicLong activity = new AtomicLong();
+
+			wheel.track("s1", 0, idleMs, () -> {
+				if (System.nanoTime() - trackedAt < TimeUnit.MILLISECONDS.toNanos(idleMs)) {
+					return trackedAt;
+				}
+				// Первая проверка простоя: звук «пришёл» так, что новый срок попадает
+				// ровно на оборот колеса вперёд, в обрабатываемую сейчас ячейку
+				if (activity.get() == 0) {
+					long tick = (Long) ReflectionTestUtils.getField(wheel, "tick");
+					activity.set(startNanos + (tick - 1) * tickNanos + tickNanos / 2);
+				}
+				return activity.get();
+			});
+
+			Expired event = expired.poll(2, TimeUnit.SECONDS);
+
+			assertThat(event).isNotNull();
+			assertThat(event.reason()).isEqualTo(SessionLifecycleScheduler.Reason.IDLE);
+			// Вовремя — через idle и пару тиков; с ошибкой — ещё на оборот колеса позже
+			assertThat(TimeUnit.NANOSECONDS.toMillis(event.atNanos() - activity.get()))
+					.isBetween(idleMs, idleMs + slots * tickMs / 2);
+		} finally {
+			wheel.cleanup();
+		}
+	}
+
+	@Test
+	void sessionWithoutLimitsIsTrackedButNeverExpires() throws InterruptedException {
+		scheduler.track("s1", 0, 0, System::nanoTime);
+
+		assertThat(expired.poll(100, TimeUnit.MILLISECONDS)).isNull();
+		List<Map<String, Object>> snapshot = scheduler.snapshot();
+		assertThat(snapshot).hasSize(1);
+		assertThat(snapshot.get(0).get("deadlineAt")).isNull();
+		assertThat(snapshot.get(0).get("expiresInMs")).isNull();
+	}
+
+	private long generationOf(String sessionId) {
+		return scheduler.snapshot().stream()
+				.filter(info -> sessionId.equals(info.get("sessionId")))
+				.map(info -> (Long) info.get("generation"))
+				.findFirst()
+				.orElseThrow();
+	}
+}
@@ -0,0 +1,89 @@
+package com.medsoft.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.medsoft.models.OperationReport;
+import com.medsoft.models.dto.ReportSearchCriteria;
+import com.medsoft.repository.OperationReportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReportExportServiceImplTest {
+
+	private final OperationReportRepository repository = mock(OperationReportRepository.class);
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	private final ReportExportServiceImpl service = new ReportExportServiceImpl(repository, objectMapper);
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "fetchSize", 100);
+		// Сброс посреди выгрузки тоже не должен добавлять разделителей
+		ReflectionTestUtils.setField(service, "flushRows", 2);
+	}
+
+	@Test
+	void writesOneJsonObjectPerLineWithoutSeparators() throws IOException {
+		when(repository.stream(any(ReportSearchCriteria.class), anyInt()))
+				.thenReturn(LongStream.rangeClosed(1, 5).mapToObj(ReportExportServiceImplTest::report));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long rows = service.export(ReportSearchCriteria.builder().build(), ReportExportService.Format.NDJSON, out);
+
+		String ndjson = out.toString(StandardCharsets.UTF_8);
+		assertThat(rows).isEqualTo(5);
+		assertThat(ndjson).endsWith("}\n");
+
+		List<String> lines = ndjson.lines().toList();
+		assertThat(lines).hasSize(5);
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i);
+			assertThat(line).as("строка %d", i + 1).startsWith("{").endsWith("}");
+			JsonNode node = objectMapper.readTree(line);
+			assertThat(node.get("id").asLong()).isEqualTo(i + 1);
+			assertThat(node.get("patientFullName").asText()).isEqualTo("Пациент " + (i + 1));
+		}
+	}
+
+	@Test
+	void emptySelectionGivesEmptyBody() throws IOException {
+		when(repository.stream(any(ReportSearchCriteria.class), anyInt())).thenReturn(Stream.empty());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long rows = service.export(ReportSearchCriteria.builder().build(), ReportExportService.Format.NDJSON, out);
+
+		assertThat(rows).isZero();
+		assertThat(out.size()).isZero();
+	}
+
+	private static OperationReport report(long id) {
+		return OperationReport.builder()
+				.id(id)
+				.patientFullName("Пациент " + id)
+				.doctorFullName("Врач")
+				.diagnosis("Диагноз")
+				.operationDescription("Описание \"в кавычках\"\nвторая строка")
+				.fillerFullName("Заполняющий")
+				.personalNumber("42")
+				.createdAt(LocalDateTime.of(2026, 10, 17, 9, 30))
+				.build();
+	}
+}
@@ -6,12 +6,23 @@ export async function startRecognition() {
     });
 }
 
-export async function stopRecognition() {
-    return fetch(`${API_BASE}/stop-continuous`, {
+export async function stopRecognition(sessionId) {
+    const params = new URLSearchParams({ sessionId });
+    return fetch(`${API_BASE}/stop-continuous?${params}`, {
         method: "POST"
     });
 }
 
+export async function finalizeDraft(sessionId) {
+    return fetch(`/api/reports/drafts/${encodeURIComponent(sessionId)}/finalize`, {
+        method: "POST"
+    });
+}
+
+export function reportPdfUrl(reportId) {
+    return `/api/reports/${encodeURIComponent(reportId)}/pdf`;
+}
+
 export async function saveReport(report) {
     return fetch(`${API_BASE}/save-report`, {
         method: "POST",
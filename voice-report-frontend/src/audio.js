@@ -0,0 +1,70 @@
+const AUDIO_WS_URL = `ws://${location.host}/ws/audio`;
+const FRAME_SIZE = 4096;
+
+let socket;
+let context;
+let stream;
+let processor;
+
+export function start(onSession, onNotice) {
+    return new Promise(async (resolve, reject) => {
+        try {
+            stream = await navigator.mediaDevices.getUserMedia({ audio: { channelCount: 1 } });
+        } catch (e) {
+            reject(e);
+            return;
+        }
+
+        // Звук уходит как есть, в частоте устройства; приведение к 16 кГц делает сервер
+        context = new AudioContext();
+        socket = new WebSocket(`${AUDIO_WS_URL}?sampleRate=${context.sampleRate}&channels=1&encoding=f32le`);
+        socket.binaryType = "arraybuffer";
+
+        socket.onmessage = (e) => {
+            const message = JSON.parse(e.data);
+            if (message.type === "session") {
+                onSession(message.sessionId);
+                startCapture();
+                resolve(message.sessionId);
+            } else {
+                onNotice(message);
+            }
+        };
+        socket.onclose = (e) => {
+            stopCapture();
+            closeContext();
+            if (e.code !== 1000) reject(new Error(e.reason || "Аудиопоток закрыт"));
+        };
+    });
+}
+
+export function stop() {
+    stopCapture();
+    closeContext();
+    if (socket) socket.close(1000);
+}
+
+function startCapture() {
+    const source = context.createMediaStreamSource(stream);
+    processor = context.createScriptProcessor(FRAME_SIZE, 1, 1);
+
+    processor.onaudioprocess = (e) => {
+        if (socket.readyState !== WebSocket.OPEN) return;
+
+        socket.send(new Float32Array(e.inputBuffer.getChannelData(0)).buffer);
+    };
+
+    source.connect(processor);
+    processor.connect(context.destination);
+}
+
+function stopCapture() {
+    if (processor) processor.disconnect();
+    if (stream) stream.getTracks().forEach(track => track.stop());
+    processor = stream = null;
+}
+
+function closeContext() {
+    if (context) context.close();
+    context = null;
+}
@@ -1,21 +1,35 @@
 import "./style.css";
 import * as api from "./api";
+import * as audio from "./audio";
 import * as ws from "./ws";
 import * as ui from "./ui";
 import {resetForm} from "./ui";
 
 const log = (msg) => document.getElementById("log").innerText = msg;
 
+let sessionId = null;
+// Последний сохраненный отчет: к нему относится «создай pdf» после «заверши»
+let lastReportId = null;
+
 ui.highlight();
 
 document.getElementById("startBtn").onclick = async () => {
-    await api.startRecognition();
-    ws.connect(handleRecognition);
+    try {
+        await audio.start(
+            (id) => sessionId = id,
+            (notice) => console.warn("Аудиопоток:", notice)
+        );
+    } catch (e) {
+        log("Ошибка: " + e.message);
+        return;
+    }
+    ws.connect(sessionId, handleRecognition);
     log("Распознавание запущено");
 };
 
 document.getElementById("stopBtn").onclick = async () => {
-    await api.stopRecognition();
+    audio.stop();
+    sessionId = null;
     ws.disconnect();
     log("Распознавание остановлено");
 };
@@ -23,12 +37,20 @@ document.getElementById("stopBtn").onclick = async () => {
 document.getElementById("saveBtn").onclick = async () => {
     const res = await api.saveReport(ui.getReportData());
     const json = await res.json();
+    lastReportId = json.reportId;
     alert("Отчет сохранен. ID: " + json.reportId);
 };
 
 function handleRecognition(data) {
     console.log(data)
 
+    if (data.type === "partial") {
+        ui.showPartial(data.offset, data.text);
+        return;
+    }
+
+    ui.clearPartial();
+
     if (!data.command) {
         ui.writeText(data.text);
         return;
@@ -45,12 +67,25 @@ function handleRecognition(data) {
             break;
 
         case "COMPLETE":
-            api.saveReport(ui.getReportData());
+            finalizeReport(data.sessionId);
             resetForm()
             break;
 
+        case "GENERATE_PDF":
+            // Окно из обработчика сообщения блокируется браузером, поэтому показываем ссылку
+            finalizeReport(data.sessionId)
+                .then((reportId) => reportId && ui.showReportLink(api.reportPdfUrl(reportId), reportId));
+            resetForm()
+            break;
+
+        case "CLEAR":
+            ui.clearActiveField();
+            break;
+
         default:
-            if (data.recognizedCommand.startsWith("FIELD_")) {
+            if (data.commandField) {
+                ui.setActiveFieldByName(data.commandField.replace("Field", ""));
+            } else if (data.recognizedCommand.startsWith("FIELD_")) {
                 const fieldName =
                     data.recognizedCommand
                         .replace("FIELD_", "")
@@ -62,3 +97,15 @@ function handleRecognition(data) {
     }
 }
 
+
+// Черновик уже сохранен командой «заверши» (404) — берем последний сохраненный отчет
+async function finalizeReport(id) {
+    const response = await api.finalizeDraft(id);
+    if (response.ok) {
+        lastReportId = (await response.json()).reportId;
+    } else if (response.status !== 404) {
+        log("Ошибка сохранения отчета: " + response.status);
+        return null;
+    }
+    return lastReportId;
+}
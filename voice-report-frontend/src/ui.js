@@ -9,6 +9,8 @@ export const fields = [
 
 export let activeFieldIndex = 0;
 
+let partialText = "";
+
 export function highlight() {
     fields.forEach((id, index) => {
         document.getElementById(id)
@@ -21,6 +23,20 @@ export function writeText(text) {
     field.value += (field.value ? " " : "") + text;
 }
 
+export function showPartial(offset, text) {
+    partialText = partialText.slice(0, offset) + text;
+    document.getElementById("partial").innerText = partialText;
+}
+
+export function clearPartial() {
+    partialText = "";
+    document.getElementById("partial").innerText = "";
+}
+
+export function clearActiveField() {
+    document.getElementById(fields[activeFieldIndex]).value = "";
+}
+
 export function nextField() {
     activeFieldIndex = Math.min(activeFieldIndex + 1, fields.length - 1);
     highlight();
@@ -58,4 +74,10 @@ export function resetForm() {
     });
 
     highlight();
-}
\ No newline at end of file
+}
+export function showReportLink(url, reportId) {
+    const link = document.getElementById("reportPdf");
+    link.href = url;
+    link.innerText = "📄 Отчет №" + reportId + " (PDF)";
+    link.hidden = false;
+}
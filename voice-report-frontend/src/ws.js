@@ -1,15 +1,50 @@
 const WS_URL = `ws://${location.host}/ws/voice`;
+const RECONNECT_DELAYS_MS = [500, 1000, 2000, 5000];
 
 let socket;
+let sessionId = null;
+let lastSeq = 0;
+let attempt = 0;
+let reconnectTimer;
 
-export function connect(onMessage) {
-    socket = new WebSocket(WS_URL);
+export function connect(id, onMessage) {
+    sessionId = id;
+    lastSeq = 0;
+    attempt = 0;
+    open(onMessage);
+}
+
+function open(onMessage) {
+    // После обрыва сервер досылает результаты с номерами больше lastSeq
+    const params = new URLSearchParams({ session: sessionId, lastSeq });
+    socket = new WebSocket(`${WS_URL}?${params}`);
 
-    socket.onopen = () => console.log("WebSocket подключен");
-    socket.onmessage = (e) => onMessage(JSON.parse(e.data));
+    socket.onopen = () => {
+        attempt = 0;
+        console.log("WebSocket подключен");
+    };
+    socket.onmessage = (e) => {
+        const data = JSON.parse(e.data);
+        if (data.type === "replay-gap") {
+            console.warn(`Результаты ${data.fromSeq}..${data.toSeq} потеряны при обрыве связи`);
+            return;
+        }
+        if (data.seq) {
+            if (data.seq <= lastSeq) return;
+            lastSeq = data.seq;
+        }
+        onMessage(data);
+    };
     socket.onerror = () => console.error("WS error");
+    socket.onclose = () => {
+        if (!sessionId) return;
+        const delay = RECONNECT_DELAYS_MS[Math.min(attempt++, RECONNECT_DELAYS_MS.length - 1)];
+        reconnectTimer = setTimeout(() => open(onMessage), delay);
+    };
 }
 
 export function disconnect() {
+    sessionId = null;
+    clearTimeout(reconnectTimer);
     if (socket) socket.close();
 }